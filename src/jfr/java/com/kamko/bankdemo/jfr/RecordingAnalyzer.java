@@ -0,0 +1,192 @@
+package com.kamko.bankdemo.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summarises a flight recording by money and PIN operation: how many there were and how they ended, the latency
+ * percentiles, the amount moved and how much of the latency overlapped a GC pause or was spent blocked on the
+ * operation's own thread. Blocking is the time covered by {@code jdk.JavaMonitorEnter} and {@code jdk.ThreadPark}
+ * events above their threshold, so it includes waits for the PIN hashing pool and the connection pool.
+ * <pre>
+ * mvn -Pjfr test-compile exec:exec -Djfr.recording=recording.jfr
+ * </pre>
+ */
+public class RecordingAnalyzer {
+
+    private static final String GC_PAUSE = "jdk.GCPhasePause";
+    private static final List<String> BLOCKING = List.of("jdk.JavaMonitorEnter", "jdk.ThreadPark");
+    private static final String PIN_PREFIX = "pin-";
+
+    private final List<RecordedEvent> operations = new ArrayList<>();
+    private final List<Interval> gcPauses = new ArrayList<>();
+    private final Map<Long, List<Interval>> blockedByThread = new HashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: RecordingAnalyzer <recording.jfr>");
+            System.exit(1);
+        }
+        print(analyze(Path.of(args[0])));
+    }
+
+    public static List<OperationSummary> analyze(Path recording) throws IOException {
+        RecordingAnalyzer analyzer = new RecordingAnalyzer();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                analyzer.accept(file.readEvent());
+            }
+        }
+        return analyzer.summarise();
+    }
+
+    public static void print(List<OperationSummary> summaries) {
+        System.out.printf("%-16s %8s %9s %9s %9s %16s %8s %9s %11s  %s%n", "operation", "count", "p50 ms",
+                "p99 ms", "max ms", "amount", "in gc", "gc ms", "blocked ms", "outcomes");
+        summaries.forEach(summary -> System.out.printf("%-16s %8d %9.2f %9.2f %9.2f %16s %8d %9.2f %11.2f  %s%n",
+                summary.operation(), summary.count(), millis(summary.p50()), millis(summary.p99()),
+                millis(summary.max()), summary.amount() == null ? "-" : summary.amount().toPlainString(),
+                summary.gcOverlaps(), millis(summary.gcPause()), millis(summary.blocked()), summary.outcomes()));
+    }
+
+    private void accept(RecordedEvent event) {
+        String type = event.getEventType().getName();
+        if (type.equals(AccountOperationEvent.NAME) || type.equals(PinEvent.NAME)) {
+            operations.add(event);
+        } else if (type.equals(GC_PAUSE)) {
+            gcPauses.add(Interval.of(event));
+        } else if (BLOCKING.contains(type) && event.getThread() != null) {
+            blockedByThread.computeIfAbsent(event.getThread().getJavaThreadId(), id -> new ArrayList<>())
+                    .add(Interval.of(event));
+        }
+    }
+
+    private List<OperationSummary> summarise() {
+        gcPauses.sort(Comparator.comparing(Interval::start));
+        blockedByThread.values().forEach(intervals -> intervals.sort(Comparator.comparing(Interval::start)));
+        Map<String, Accumulator> byOperation = new TreeMap<>();
+        for (RecordedEvent event : operations) {
+            boolean account = event.getEventType().getName().equals(AccountOperationEvent.NAME);
+            String operation = (account ? "" : PIN_PREFIX) + event.getString("operation");
+            byOperation.computeIfAbsent(operation, name -> new Accumulator(account)).add(event);
+        }
+        return byOperation.entrySet().stream()
+                .map(entry -> entry.getValue().summary(entry.getKey()))
+                .toList();
+    }
+
+    private Duration overlap(List<Interval> intervals, Interval window) {
+        Duration total = Duration.ZERO;
+        // intervals of one kind don't overlap each other, so sorted by start they are sorted by end as well
+        int from = firstEndingAfter(intervals, window.start());
+        for (int i = from; i < intervals.size() && intervals.get(i).start().isBefore(window.end()); i++) {
+            total = total.plus(intervals.get(i).overlap(window));
+        }
+        return total;
+    }
+
+    private static int firstEndingAfter(List<Interval> intervals, Instant instant) {
+        int low = 0;
+        int high = intervals.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (intervals.get(middle).end().isAfter(instant)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static double millis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+
+    /**
+     * @param amount total requested amount of the money operations, {@code null} for PIN operations
+     * @param gcOverlaps operations that overlapped at least one GC pause
+     */
+    public record OperationSummary(String operation, long count, Map<String, Long> outcomes, Duration p50,
+                                   Duration p99, Duration max, BigDecimal amount, long gcOverlaps,
+                                   Duration gcPause, Duration blocked) {
+    }
+
+    private record Interval(Instant start, Instant end) {
+
+        static Interval of(RecordedEvent event) {
+            return new Interval(event.getStartTime(), event.getEndTime());
+        }
+
+        Duration overlap(Interval other) {
+            Instant from = start.isAfter(other.start) ? start : other.start;
+            Instant to = end.isBefore(other.end) ? end : other.end;
+            return from.isBefore(to) ? Duration.between(from, to) : Duration.ZERO;
+        }
+
+    }
+
+    private class Accumulator {
+
+        private final boolean account;
+        private final List<Duration> durations = new ArrayList<>();
+        private final Map<String, Long> outcomes = new TreeMap<>();
+        private BigDecimal amount = BigDecimal.ZERO;
+        private long gcOverlaps;
+        private Duration gcPause = Duration.ZERO;
+        private Duration blocked = Duration.ZERO;
+
+        Accumulator(boolean account) {
+            this.account = account;
+        }
+
+        void add(RecordedEvent event) {
+            Interval window = Interval.of(event);
+            durations.add(event.getDuration());
+            outcomes.merge(event.getString("outcome"), 1L, Long::sum);
+            if (account) {
+                amount = amount.add(BigDecimal.valueOf(event.getDouble("amount")));
+            }
+            Duration paused = overlap(gcPauses, window);
+            if (!paused.isZero()) {
+                gcOverlaps++;
+                gcPause = gcPause.plus(paused);
+            }
+            RecordedThread thread = event.getThread();
+            if (thread != null) {
+                blocked = blocked.plus(overlap(blockedByThread.getOrDefault(thread.getJavaThreadId(), List.of()),
+                        window));
+            }
+        }
+
+        OperationSummary summary(String operation) {
+            Collections.sort(durations);
+            return new OperationSummary(operation, durations.size(), outcomes, percentile(0.5), percentile(0.99),
+                    durations.get(durations.size() - 1),
+                    account ? amount.setScale(2, RoundingMode.HALF_UP) : null,
+                    gcOverlaps, gcPause, blocked);
+        }
+
+        private Duration percentile(double quantile) {
+            int rank = (int) Math.ceil(quantile * durations.size());
+            return durations.get(Math.max(rank, 1) - 1);
+        }
+
+    }
+
+}
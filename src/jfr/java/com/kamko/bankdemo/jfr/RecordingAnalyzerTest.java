@@ -0,0 +1,67 @@
+package com.kamko.bankdemo.jfr;
+
+import com.kamko.bankdemo.exception.WrongPinException;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class RecordingAnalyzerTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void analyze_summarisesByOperation() throws IOException {
+        Path file = dir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(AccountOperationEvent.class);
+            recording.enable(PinEvent.class);
+            recording.start();
+            deposit(10, "ok");
+            deposit(25.5, "ok");
+            deposit(1, "not_found");
+            PinEvent.start(PinEvent.VERIFY, 1L).commit();
+            PinEvent failed = PinEvent.start(PinEvent.VERIFY, 1L);
+            failed.fail(new WrongPinException(1L));
+            failed.commit();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordingAnalyzer.OperationSummary> summaries = RecordingAnalyzer.analyze(file);
+
+        assertThat(summaries).extracting(RecordingAnalyzer.OperationSummary::operation)
+                .containsExactly("deposit", "pin-verify");
+        RecordingAnalyzer.OperationSummary deposits = summaries.get(0);
+        RecordingAnalyzer.OperationSummary verifications = summaries.get(1);
+        assertAll(
+                () -> assertThat(deposits.count()).isEqualTo(3),
+                () -> assertThat(deposits.outcomes()).isEqualTo(Map.of("ok", 2L, "not_found", 1L)),
+                () -> assertThat(deposits.amount()).isEqualByComparingTo(BigDecimal.valueOf(36.5)),
+                () -> assertThat(deposits.p50()).isLessThanOrEqualTo(deposits.p99()),
+                () -> assertThat(deposits.p99()).isLessThanOrEqualTo(deposits.max()),
+                () -> assertThat(verifications.outcomes()).isEqualTo(Map.of("ok", 1L, "wrong_pin", 1L)),
+                () -> assertThat(verifications.amount()).isNull()
+        );
+    }
+
+    private static void deposit(double amount, String outcome) {
+        AccountOperationEvent event = new AccountOperationEvent();
+        event.begin();
+        event.operation = "deposit";
+        event.toAccountId = 1;
+        event.amount = amount;
+        event.outcome = outcome;
+        event.commit();
+    }
+
+}
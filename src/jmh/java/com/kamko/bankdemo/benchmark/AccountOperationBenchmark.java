@@ -0,0 +1,72 @@
+package com.kamko.bankdemo.benchmark;
+
+import com.kamko.bankdemo.BankDemoApplication;
+import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
+import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.account_operation.TransferRequest;
+import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
+import com.kamko.bankdemo.service.AccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@code deposit}, {@code withdraw} or {@code transfer} per invocation through the full service stack of
+ * the default engine: PIN check, balance update, transaction log and cache maintenance against the embedded H2
+ * database. The baseline every change on the money path is compared with.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AccountOperationBenchmark {
+
+    private static final String PIN = "1111";
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private Long firstId;
+    private Long secondId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:account-operation",
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--spring.h2.console.enabled=false");
+        accountService = context.getBean(AccountService.class);
+        firstId = accountService.create(new NewAccountDto("first", PIN)).id();
+        secondId = accountService.create(new NewAccountDto("second", PIN)).id();
+        accountService.deposit(new DepositRequest(firstId, BigDecimal.valueOf(100_000_000)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AccountIdNameBalanceDto deposit() {
+        return accountService.deposit(new DepositRequest(secondId, AMOUNT));
+    }
+
+    @Benchmark
+    public AccountIdNameBalanceDto withdraw() {
+        return accountService.withdraw(new WithdrawRequest(firstId, AMOUNT, PIN));
+    }
+
+    @Benchmark
+    public void transfer() {
+        accountService.transfer(new TransferRequest(firstId, secondId, AMOUNT, PIN));
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.kamko.bankdemo.benchmark;
+
+import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
+import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
+import com.kamko.bankdemo.entity.Account;
+import com.kamko.bankdemo.entity.Operation;
+import com.kamko.bankdemo.entity.TransactionLog;
+import com.kamko.bankdemo.mapper.AccountMapper;
+import com.kamko.bankdemo.mapper.AccountMapperImpl;
+import com.kamko.bankdemo.mapper.TransactionLogMapper;
+import com.kamko.bankdemo.mapper.TransactionLogMapperImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The generated MapStruct conversions on their own, one entity or request per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MapperBenchmark {
+
+    private final AccountMapper accountMapper = new AccountMapperImpl();
+    private final TransactionLogMapper transactionLogMapper = new TransactionLogMapperImpl();
+
+    private NewAccountDto newAccount;
+    private Account account;
+    private TransactionLog transaction;
+
+    @Setup
+    public void setUp() {
+        newAccount = new NewAccountDto("benchmark", "1111");
+        account = new Account();
+        account.setId(1L);
+        account.setName("benchmark");
+        account.setBalance(new BigDecimal("1000.00"));
+        transaction = new TransactionLog(Operation.DEPOSIT, new BigDecimal("10.00"), account);
+        transaction.setDateTime(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public Account newAccountToEntity() {
+        return accountMapper.toEntity(newAccount);
+    }
+
+    @Benchmark
+    public AccountIdNameBalanceDto accountToIdNameBalance() {
+        return accountMapper.toIdNameBalance(account);
+    }
+
+    @Benchmark
+    public TransactionLogDto transactionLogToDto() {
+        return transactionLogMapper.toDto(transaction);
+    }
+
+}
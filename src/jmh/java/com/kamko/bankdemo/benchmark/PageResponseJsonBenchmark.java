@@ -0,0 +1,65 @@
+package com.kamko.bankdemo.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kamko.bankdemo.dto.PageResponse;
+import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
+import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
+import com.kamko.bankdemo.entity.Operation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the account and history {@link PageResponse}s to the bytes the controllers send, with an
+ * {@link ObjectMapper} configured the way Spring Boot configures the web one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PageResponseJsonBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private PageResponse<AccountNameBalanceDto> accountPage;
+    private PageResponse<TransactionLogDto> historyPage;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        LocalDateTime now = LocalDateTime.now();
+        List<AccountNameBalanceDto> accounts = new ArrayList<>(pageSize);
+        List<TransactionLogDto> transactions = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            accounts.add(new AccountNameBalanceDto("account " + i, BigDecimal.valueOf(i * 100L, 2)));
+            transactions.add(new TransactionLogDto(i % 2 == 0 ? Operation.DEPOSIT : Operation.WITHDRAW,
+                    BigDecimal.valueOf(i * 10L, 2), now.minusMinutes(i)));
+        }
+        PageRequest pageRequest = PageRequest.of(0, pageSize);
+        accountPage = PageResponse.of(new PageImpl<>(accounts, pageRequest, 10_000));
+        historyPage = PageResponse.of(new PageImpl<>(transactions, pageRequest, 10_000));
+    }
+
+    @Benchmark
+    public byte[] accountPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(accountPage);
+    }
+
+    @Benchmark
+    public byte[] historyPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(historyPage);
+    }
+
+}
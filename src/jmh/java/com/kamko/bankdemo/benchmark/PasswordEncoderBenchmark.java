@@ -0,0 +1,60 @@
+package com.kamko.bankdemo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one PIN hash and one PIN check per encoder candidate, used to choose
+ * {@code app.security.encoder.id} and {@code bcrypt-strength} against the latency budget of the hardware
+ * the service runs on. Argon2 and PBKDF2 use the Spring Security 5.8 defaults, as configured in
+ * {@code AppConfig}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PasswordEncoderBenchmark {
+
+    private static final String PIN = "1111";
+
+    @Param({"bcrypt-8", "bcrypt-10", "bcrypt-12", "argon2", "pbkdf2"})
+    private String encoderId;
+
+    private PasswordEncoder encoder;
+    private String encodedPin;
+
+    @Setup
+    public void setUp() {
+        encoder = createEncoder(encoderId);
+        encodedPin = encoder.encode(PIN);
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode(PIN);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PIN, encodedPin);
+    }
+
+    private static PasswordEncoder createEncoder(String encoderId) {
+        if (encoderId.startsWith("bcrypt-")) {
+            return new BCryptPasswordEncoder(Integer.parseInt(encoderId.substring("bcrypt-".length())));
+        }
+        return switch (encoderId) {
+            case "argon2" -> Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+            case "pbkdf2" -> Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+            default -> throw new IllegalArgumentException("unknown encoder: " + encoderId);
+        };
+    }
+
+}
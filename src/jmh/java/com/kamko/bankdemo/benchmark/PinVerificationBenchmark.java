@@ -0,0 +1,57 @@
+package com.kamko.bankdemo.benchmark;
+
+import com.kamko.bankdemo.config.PinSecurityProperties;
+import com.kamko.bankdemo.security.PinHashingExecutor;
+import com.kamko.bankdemo.security.PinVerificationCache;
+import com.kamko.bankdemo.service.impl.SecurityServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code verifyPin} for a returning client with a correct PIN, without ({@code cacheEnabled=false}, the
+ * pre-cache behaviour) and with the verification cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PinVerificationBenchmark {
+
+    private static final String PIN = "1111";
+    private static final Long ACCOUNT_ID = 1L;
+
+    @Param({"false", "true"})
+    private boolean cacheEnabled;
+
+    private PinHashingExecutor hashingExecutor;
+    private SecurityServiceImpl securityService;
+    private String encodedPin;
+
+    @Setup
+    public void setUp() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+        PinSecurityProperties properties = new PinSecurityProperties(null,
+                new PinSecurityProperties.Cache(cacheEnabled, 10_000, Duration.ofMinutes(5)),
+                new PinSecurityProperties.Hashing(0, 64));
+        hashingExecutor = new PinHashingExecutor(properties, new SimpleMeterRegistry());
+        securityService = new SecurityServiceImpl(encoder, new PinVerificationCache(properties), hashingExecutor);
+        encodedPin = encoder.encode(PIN);
+    }
+
+    @TearDown
+    public void tearDown() {
+        hashingExecutor.destroy();
+    }
+
+    @Benchmark
+    public void verifyPin() {
+        securityService.verifyPin(PIN, encodedPin, ACCOUNT_ID);
+    }
+
+}
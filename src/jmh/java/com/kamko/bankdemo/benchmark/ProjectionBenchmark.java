@@ -0,0 +1,144 @@
+package com.kamko.bankdemo.benchmark;
+
+import com.kamko.bankdemo.BankDemoApplication;
+import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
+import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
+import com.kamko.bankdemo.entity.Account;
+import com.kamko.bankdemo.entity.Operation;
+import com.kamko.bankdemo.entity.TransactionLog;
+import com.kamko.bankdemo.mapper.TransactionLogMapper;
+import com.kamko.bankdemo.repo.AccountRepo;
+import com.kamko.bankdemo.repo.TransactionLogRepo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Account and history pages read as entities and mapped afterwards, the way the services did it, against the
+ * DTO projection queries they use now. Both sides fetch {@link #PAGE_SIZE} rows without a count query in a
+ * read-only transaction, and the second-level and query caches are off, so the difference is entity hydration
+ * alone. Run it with {@code -prof gc} to see the allocation per page next to the latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProjectionBenchmark {
+
+    private static final long HOT_ACCOUNT = 1L;
+    private static final int ACCOUNTS = 1_000;
+    private static final int HOT_ROWS = 1_000;
+    private static final int PAGE_SIZE = 100;
+    private static final String SELECT_ACCOUNTS = "select a from Account a";
+    private static final String SELECT_HISTORY = """
+            select t
+            from TransactionLog t
+            where t.account.id = :accountId
+            order by t.account.id, t.dateTime desc, t.id desc
+            """;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private AccountRepo accountRepo;
+    private TransactionLogRepo transactionLogRepo;
+    private TransactionLogMapper transactionLogMapper;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:projection",
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                        "--spring.h2.console.enabled=false");
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        insertAccounts(jdbcTemplate);
+        insertTransactions(jdbcTemplate);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        accountRepo = context.getBean(AccountRepo.class);
+        transactionLogRepo = context.getBean(TransactionLogRepo.class);
+        transactionLogMapper = context.getBean(TransactionLogMapper.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<AccountNameBalanceDto> accountPageEntities() {
+        return readOnly.execute(status -> entityManager.createQuery(SELECT_ACCOUNTS, Account.class)
+                .setMaxResults(PAGE_SIZE)
+                .getResultStream()
+                .map(account -> new AccountNameBalanceDto(account.getName(), account.getBalance()))
+                .toList());
+    }
+
+    @Benchmark
+    public List<AccountNameBalanceDto> accountPageProjection() {
+        return readOnly.execute(status -> accountRepo.findSliceOfNameBalance(PageRequest.of(0, PAGE_SIZE - 1))
+                .getContent());
+    }
+
+    @Benchmark
+    public List<TransactionLogDto> historyPageEntities() {
+        return readOnly.execute(status -> entityManager.createQuery(SELECT_HISTORY, TransactionLog.class)
+                .setParameter("accountId", HOT_ACCOUNT)
+                .setMaxResults(PAGE_SIZE)
+                .getResultStream()
+                .map(transactionLogMapper::toDto)
+                .toList());
+    }
+
+    @Benchmark
+    public List<TransactionLogDto> historyPageProjection() {
+        return readOnly.execute(status -> transactionLogRepo.findSliceOfTransaction(
+                PageRequest.of(0, PAGE_SIZE - 1), HOT_ACCOUNT).getContent());
+    }
+
+    private static void insertAccounts(JdbcTemplate jdbcTemplate) {
+        List<Object[]> accounts = new ArrayList<>(ACCOUNTS);
+        for (long id = 1; id <= ACCOUNTS; id++) {
+            // a real BCrypt hash is 60 characters, the entity side has to load it too
+            accounts.add(new Object[]{id, "account " + id, "$2a$10$" + "x".repeat(53), BigDecimal.valueOf(id)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO account (id, name, pin, balance) VALUES (?, ?, ?, ?)", accounts);
+    }
+
+    private static void insertTransactions(JdbcTemplate jdbcTemplate) {
+        LocalDateTime now = LocalDateTime.now();
+        Operation[] operations = Operation.values();
+        List<Object[]> rows = new ArrayList<>(HOT_ROWS);
+        for (int i = 0; i < HOT_ROWS; i++) {
+            rows.add(new Object[]{i + 1L, operations[i % operations.length].name(), BigDecimal.valueOf(i),
+                    HOT_ACCOUNT, Timestamp.valueOf(now.minusMinutes(i))});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO transaction_log (id, operation, amount, account_id, date_time)
+                VALUES (?, ?, ?, ?, ?)
+                """, rows);
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.kamko.bankdemo.benchmark;
+
+import com.github.javafaker.Faker;
+import com.kamko.bankdemo.BankDemoApplication;
+import com.kamko.bankdemo.dto.CursorPageResponse;
+import com.kamko.bankdemo.dto.PageResponse;
+import com.kamko.bankdemo.dto.transaction.TransactionLogCursor;
+import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
+import com.kamko.bankdemo.entity.Operation;
+import com.kamko.bankdemo.service.TransactionLogService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads of one account's transaction history while the rest of {@code transaction_log} grows. The hot account
+ * always owns {@link #HOT_ROWS} rows, so with the {@code (account_id, date_time, id)} index every benchmark
+ * should stay flat across {@code rows}. Rows are generated with javafaker and inserted over plain JDBC batches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransactionHistoryVolumeBenchmark {
+
+    private static final long HOT_ACCOUNT = 1L;
+    private static final int ACCOUNTS = 1_000;
+    private static final int HOT_ROWS = 2_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_PAGE = 50;
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"100000", "1000000", "2000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private TransactionLogService transactionLogService;
+    private String deepCursor;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:history-" + rows,
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--spring.h2.console.enabled=false");
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        insertAccounts(jdbcTemplate);
+        insertTransactions(jdbcTemplate, new Faker());
+        transactionLogService = context.getBean(TransactionLogService.class);
+
+        Object[] row = jdbcTemplate.queryForObject("""
+                SELECT date_time, id FROM transaction_log
+                WHERE account_id = ?
+                ORDER BY date_time DESC, id DESC
+                OFFSET ? ROWS FETCH NEXT 1 ROWS ONLY
+                """, (rs, rowNum) -> new Object[]{rs.getTimestamp(1), rs.getLong(2)},
+                HOT_ACCOUNT, DEEP_PAGE * PAGE_SIZE - 1);
+        deepCursor = new TransactionLogCursor(((Timestamp) row[0]).toLocalDateTime(), (Long) row[1]).encode();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PageResponse<TransactionLogDto> offsetFirstPage() {
+        return PageResponse.of(transactionLogService.findAccountTransactions(HOT_ACCOUNT, 0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public PageResponse<TransactionLogDto> offsetDeepPage() {
+        return PageResponse.of(transactionLogService.findAccountTransactions(HOT_ACCOUNT, DEEP_PAGE, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public CursorPageResponse<TransactionLogDto> scrollDeepPage() {
+        return transactionLogService.scrollAccountTransactions(HOT_ACCOUNT, deepCursor, PAGE_SIZE);
+    }
+
+    private static void insertAccounts(JdbcTemplate jdbcTemplate) {
+        List<Object[]> accounts = new ArrayList<>(ACCOUNTS);
+        for (long id = 1; id <= ACCOUNTS; id++) {
+            accounts.add(new Object[]{id, "account " + id, BigDecimal.ZERO});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO account (id, name, balance) VALUES (?, ?, ?)", accounts);
+    }
+
+    private void insertTransactions(JdbcTemplate jdbcTemplate, Faker faker) {
+        Operation[] operations = Operation.values();
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < rows; i++) {
+            long accountId = i < HOT_ROWS ? HOT_ACCOUNT : faker.number().numberBetween(2, ACCOUNTS + 1);
+            batch.add(new Object[]{
+                    i + 1L,
+                    operations[faker.number().numberBetween(0, operations.length)].name(),
+                    BigDecimal.valueOf(faker.number().randomDouble(2, 1, 10_000)),
+                    accountId,
+                    new Timestamp(faker.date().past(365, TimeUnit.DAYS).getTime())
+            });
+            if (batch.size() == INSERT_BATCH) {
+                insertBatch(jdbcTemplate, batch);
+            }
+        }
+        insertBatch(jdbcTemplate, batch);
+    }
+
+    private static void insertBatch(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO transaction_log (id, operation, amount, account_id, date_time)
+                VALUES (?, ?, ?, ?, ?)
+                """, batch);
+        batch.clear();
+    }
+
+}
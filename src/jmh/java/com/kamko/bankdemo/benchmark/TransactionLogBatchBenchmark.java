@@ -0,0 +1,95 @@
+package com.kamko.bankdemo.benchmark;
+
+import com.kamko.bankdemo.BankDemoApplication;
+import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.account_operation.TransferRequest;
+import com.kamko.bankdemo.entity.Account;
+import com.kamko.bankdemo.repo.AccountRepo;
+import com.kamko.bankdemo.service.AccountService;
+import com.kamko.bankdemo.service.TransactionLogService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes of transaction log rows against the embedded H2 database with JDBC batching switched off
+ * ({@code batchSize=1}) and on. {@code deposits} and {@code transfers} run one service call per transaction,
+ * {@code bulkLog} writes {@link #OPERATIONS} transfer log pairs in a single transaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransactionLogBatchBenchmark {
+
+    private static final int OPERATIONS = 50;
+    private static final String PIN = "1111";
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private TransactionLogService transactionLogService;
+    private AccountRepo accountRepo;
+    private TransactionTemplate transactionTemplate;
+    private Long firstId;
+    private Long secondId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BankDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:log-batch-" + batchSize,
+                        "--spring.jpa.properties.hibernate.show_sql=false",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "--spring.h2.console.enabled=false");
+        accountService = context.getBean(AccountService.class);
+        transactionLogService = context.getBean(TransactionLogService.class);
+        accountRepo = context.getBean(AccountRepo.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        firstId = accountService.create(new NewAccountDto("first", PIN)).id();
+        secondId = accountService.create(new NewAccountDto("second", PIN)).id();
+        accountService.deposit(new DepositRequest(firstId, BigDecimal.valueOf(100_000_000)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void deposits() {
+        for (int i = 0; i < OPERATIONS; i++) {
+            accountService.deposit(new DepositRequest(secondId, AMOUNT));
+        }
+    }
+
+    @Benchmark
+    public void transfers() {
+        for (int i = 0; i < OPERATIONS; i++) {
+            accountService.transfer(new TransferRequest(firstId, secondId, AMOUNT, PIN));
+        }
+    }
+
+    @Benchmark
+    public void bulkLog() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Account from = accountRepo.getReferenceById(firstId);
+            Account to = accountRepo.getReferenceById(secondId);
+            for (int i = 0; i < OPERATIONS; i++) {
+                transactionLogService.logTransfer(from, to, AMOUNT);
+            }
+        });
+    }
+
+}
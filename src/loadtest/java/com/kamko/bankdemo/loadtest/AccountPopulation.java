@@ -0,0 +1,39 @@
+package com.kamko.bankdemo.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Accounts the generator knows the PIN of. Created ones join while the test runs, so picks are made under
+ * the same lock as additions.
+ */
+public class AccountPopulation {
+
+    private final List<Member> members = new ArrayList<>();
+
+    public synchronized void add(long id, String pin) {
+        members.add(new Member(id, pin));
+    }
+
+    public synchronized Member pick(SplittableRandom random) {
+        return members.get(random.nextInt(members.size()));
+    }
+
+    /**
+     * Two different accounts, for a transfer.
+     */
+    public synchronized Member[] pickPair(SplittableRandom random) {
+        int from = random.nextInt(members.size());
+        int to = random.nextInt(members.size() - 1);
+        return new Member[]{members.get(from), members.get(to < from ? to : to + 1)};
+    }
+
+    public synchronized int size() {
+        return members.size();
+    }
+
+    public record Member(long id, String pin) {
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.kamko.bankdemo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one operation. The response time runs from the moment the request was scheduled to
+ * start, so time spent waiting behind a stalled server or a lagging generator is counted the way a client would
+ * see it and the percentiles are free of coordinated omission. The service time runs from the actual send and
+ * is what a closed-loop tool would have reported instead.
+ */
+class EndpointStats {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Histogram responseTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final Histogram serviceTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+
+    void record(int status, long scheduledAt, long sentAt, long completedAt) {
+        responseTime.recordValue(completedAt - scheduledAt);
+        serviceTime.recordValue(completedAt - sentAt);
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * A request that got no response at all, timed out or failed on the connection. The client still waited
+     * for it, so it counts in the response time.
+     */
+    void recordFailure(long scheduledAt, long sentAt, long completedAt) {
+        responseTime.recordValue(completedAt - scheduledAt);
+        serviceTime.recordValue(completedAt - sentAt);
+        failures.increment();
+    }
+
+    LoadTestReport.Endpoint toReport(LoadOperation operation, double seconds) {
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+        long requests = responseTime.getTotalCount();
+        return new LoadTestReport.Endpoint(operation.getEndpoint(), requests, requests / seconds, statusCounts,
+                failures.sum(), LoadTestReport.Latency.of(responseTime), LoadTestReport.Latency.of(serviceTime),
+                LoadTestReport.encode(responseTime));
+    }
+
+}
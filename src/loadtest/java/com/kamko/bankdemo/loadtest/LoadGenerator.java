@@ -0,0 +1,287 @@
+package com.kamko.bankdemo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.javafaker.Faker;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Open-model load generator for the account and transaction log endpoints of a running application.
+ * <p>
+ * Before the run it creates {@code accounts} accounts with javafaker names and funds them. The run then starts
+ * requests at Poisson-distributed arrival times with a mean of {@code rate} per second, drawing each one from the
+ * weighted {@code mix}. Requests are sent asynchronously, so a slow response never holds back the next arrival,
+ * and latency is measured from the scheduled start (see {@link EndpointStats}). The report goes to
+ * {@code report} as JSON and a summary is printed.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--rate=200 --duration=2m --mix=deposit:1,history:1"
+ * </pre>
+ */
+public class LoadGenerator {
+
+    private static final String ACCOUNTS = "/api/v1/accounts";
+    private static final String TRANSACTION_LOGS = "/api/v1/transaction-logs/";
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(100_000);
+    private static final int HISTORY_PAGE_SIZE = 20;
+    private static final int SETUP_CONCURRENCY = 32;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final LoadTestOptions options;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final SplittableRandom random;
+    private final Faker faker;
+    private final AccountPopulation population = new AccountPopulation();
+    private final Map<LoadOperation, EndpointStats> stats = new EnumMap<>(LoadOperation.class);
+    private final AtomicLong inFlight = new AtomicLong();
+    private final List<LoadOperation> operations = new ArrayList<>();
+    private final int[] cumulativeWeights;
+
+    public LoadGenerator(LoadTestOptions options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(options.timeout())
+                .build();
+        this.random = new SplittableRandom(options.seed());
+        this.faker = new Faker(new Random(options.seed()));
+        int total = 0;
+        List<Integer> cumulative = new ArrayList<>();
+        for (Map.Entry<LoadOperation, Integer> weight : options.mix().entrySet()) {
+            stats.put(weight.getKey(), new EndpointStats());
+            if (weight.getValue() > 0) {
+                total += weight.getValue();
+                operations.add(weight.getKey());
+                cumulative.add(total);
+            }
+        }
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator(LoadTestOptions.parse(args));
+        generator.populate();
+        LoadTestReport report = generator.run();
+        generator.write(report);
+    }
+
+    /**
+     * Creates and funds the account population, {@link #SETUP_CONCURRENCY} accounts at a time.
+     */
+    public void populate() throws InterruptedException {
+        Semaphore permits = new Semaphore(SETUP_CONCURRENCY);
+        List<CompletableFuture<?>> pending = new ArrayList<>(options.accounts());
+        for (int i = 0; i < options.accounts(); i++) {
+            permits.acquire();
+            String pin = pin();
+            pending.add(send(createAccount(faker.name().fullName(), pin))
+                    .thenApply(response -> expect(response, 201))
+                    .thenCompose(response -> {
+                        long id = readId(response.body());
+                        population.add(id, pin);
+                        return send(put("/deposit", Map.of("toAccountId", id, "amount", INITIAL_BALANCE)));
+                    })
+                    .thenApply(response -> expect(response, 200))
+                    .whenComplete((response, failure) -> permits.release()));
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        System.out.printf("created %d accounts at %s%n", population.size(), options.baseUrl());
+    }
+
+    public LoadTestReport run() throws InterruptedException {
+        double meanInterval = NANOS_PER_SECOND / options.rate();
+        long start = System.nanoTime();
+        long recordFrom = start + options.warmup().toNanos();
+        long end = start + options.duration().toNanos();
+        long scheduledAt = start;
+        while (true) {
+            // exponential gaps between arrivals make a Poisson process with the requested mean rate
+            scheduledAt += (long) (-Math.log(1 - random.nextDouble()) * meanInterval);
+            if (scheduledAt >= end) {
+                break;
+            }
+            parkUntil(scheduledAt);
+            fire(nextOperation(), scheduledAt, scheduledAt >= recordFrom);
+        }
+        awaitInFlight();
+        double seconds = (end - recordFrom) / NANOS_PER_SECOND;
+        Map<LoadOperation, LoadTestReport.Endpoint> endpoints = new EnumMap<>(LoadOperation.class);
+        stats.forEach((operation, endpointStats) -> endpoints.put(operation, endpointStats.toReport(operation, seconds)));
+        return new LoadTestReport(options.baseUrl().toString(), options.rate(), seconds, options.accounts(),
+                options.mix(), options.seed(), endpoints);
+    }
+
+    public void write(LoadTestReport report) throws IOException {
+        Path parent = options.report().toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        objectMapper.writeValue(options.report().toFile(), report);
+        System.out.printf("%-40s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "failures", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        report.endpoints().values().forEach(endpoint -> System.out.printf("%-40s %9d %9d %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint.endpoint(), endpoint.requests(), endpoint.failures(), endpoint.responseTime().p50(),
+                endpoint.responseTime().p99(), endpoint.responseTime().p999(), endpoint.responseTime().max()));
+        System.out.printf("report written to %s%n", options.report().toAbsolutePath());
+    }
+
+    private void fire(LoadOperation operation, long scheduledAt, boolean recorded) {
+        Consumer<HttpResponse<String>> onSuccess = response -> {
+        };
+        HttpRequest request;
+        switch (operation) {
+            case CREATE -> {
+                String pin = pin();
+                request = createAccount(faker.name().fullName(), pin);
+                onSuccess = response -> population.add(readId(response.body()), pin);
+            }
+            case DEPOSIT -> request = put("/deposit", Map.of(
+                    "toAccountId", population.pick(random).id(),
+                    "amount", amount(500)));
+            case WITHDRAW -> {
+                AccountPopulation.Member from = population.pick(random);
+                request = put("/withdraw", Map.of(
+                        "fromAccountId", from.id(),
+                        "amount", amount(50),
+                        "pin", from.pin()));
+            }
+            case TRANSFER -> {
+                AccountPopulation.Member[] pair = population.pickPair(random);
+                request = put("/transfer", Map.of(
+                        "fromAccountId", pair[0].id(),
+                        "toAccountId", pair[1].id(),
+                        "amount", amount(50),
+                        "pin", pair[0].pin()));
+            }
+            case HISTORY -> request = HttpRequest.newBuilder(uri(TRANSACTION_LOGS + population.pick(random).id()
+                            + "?pageNumber=0&pageSize=" + HISTORY_PAGE_SIZE))
+                    .timeout(options.timeout())
+                    .GET()
+                    .build();
+            default -> throw new IllegalStateException("unexpected operation " + operation);
+        }
+        Consumer<HttpResponse<String>> afterSuccess = onSuccess;
+        EndpointStats endpointStats = stats.get(operation);
+        inFlight.incrementAndGet();
+        long sentAt = System.nanoTime();
+        send(request).whenComplete((response, failure) -> {
+            long completedAt = System.nanoTime();
+            try {
+                if (failure != null) {
+                    if (recorded) {
+                        endpointStats.recordFailure(scheduledAt, sentAt, completedAt);
+                    }
+                    return;
+                }
+                if (recorded) {
+                    endpointStats.record(response.statusCode(), scheduledAt, sentAt, completedAt);
+                }
+                if (response.statusCode() / 100 == 2) {
+                    afterSuccess.accept(response);
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+    }
+
+    private LoadOperation nextOperation() {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations.get(i);
+            }
+        }
+        throw new IllegalStateException("weight " + pick + " is out of the mix");
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest createAccount(String name, String pin) {
+        return HttpRequest.newBuilder(uri(ACCOUNTS))
+                .timeout(options.timeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(Map.of("name", name, "pin", pin))))
+                .build();
+    }
+
+    private HttpRequest put(String operation, Map<String, Object> body) {
+        return HttpRequest.newBuilder(uri(ACCOUNTS + operation))
+                .timeout(options.timeout())
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json(body)))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return options.baseUrl().resolve(path);
+    }
+
+    private String json(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalStateException("can't serialize request " + body, e);
+        }
+    }
+
+    private long readId(String body) {
+        try {
+            return objectMapper.readTree(body).get("id").asLong();
+        } catch (IOException e) {
+            throw new IllegalStateException("can't read account id from " + body, e);
+        }
+    }
+
+    private String pin() {
+        return faker.number().digits(4);
+    }
+
+    private BigDecimal amount(int max) {
+        return BigDecimal.valueOf(random.nextInt(1, max + 1));
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + options.timeout().toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static HttpResponse<String> expect(HttpResponse<String> response, int status) {
+        if (response.statusCode() != status) {
+            throw new IllegalStateException(response.request().method() + " " + response.uri() + " answered "
+                    + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.kamko.bankdemo.loadtest;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The calls the load generator mixes, each reported under its own endpoint.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum LoadOperation {
+
+    CREATE("POST /api/v1/accounts"),
+    DEPOSIT("PUT /api/v1/accounts/deposit"),
+    WITHDRAW("PUT /api/v1/accounts/withdraw"),
+    TRANSFER("PUT /api/v1/accounts/transfer"),
+    HISTORY("GET /api/v1/transaction-logs/{accountId}");
+
+    private final String endpoint;
+
+}
@@ -0,0 +1,89 @@
+package com.kamko.bankdemo.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of a load test run, given as {@code --name=value} arguments; anything not given keeps its default.
+ *
+ * @param rate     arrivals per second; requests are started on this schedule whether or not earlier ones have
+ *                 answered
+ * @param warmup   leading part of {@code duration} that is driven but not recorded
+ * @param accounts size of the account population created before the run
+ * @param mix      relative weight of every operation, e.g. {@code create:5,deposit:30,withdraw:20,transfer:25,history:20}
+ */
+public record LoadTestOptions(URI baseUrl, double rate, Duration duration, Duration warmup, int accounts,
+                              Map<LoadOperation, Integer> mix, Duration timeout, long seed, Path report) {
+
+    private static final String DEFAULT_MIX = "create:5,deposit:30,withdraw:20,transfer:25,history:20";
+
+    public LoadTestOptions {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive: " + rate);
+        }
+        if (warmup.compareTo(duration) >= 0) {
+            throw new IllegalArgumentException("warmup " + warmup + " leaves nothing of duration " + duration);
+        }
+        if (accounts < 2) {
+            throw new IllegalArgumentException("transfers need at least 2 accounts: " + accounts);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("mix has no positive weight: " + mix);
+        }
+    }
+
+    public static LoadTestOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>(Map.of(
+                "base-url", "http://localhost:8080",
+                "rate", "100",
+                "duration", "60s",
+                "warmup", "10s",
+                "accounts", "1000",
+                "mix", DEFAULT_MIX,
+                "timeout", "30s",
+                "seed", "42",
+                "report", "target/loadtest-report.json"
+        ));
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, separator);
+            if (!values.containsKey(name)) {
+                throw new IllegalArgumentException("unknown option --" + name + ", known are " + values.keySet());
+            }
+            values.put(name, arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(
+                URI.create(values.get("base-url")),
+                Double.parseDouble(values.get("rate")),
+                DurationStyle.detectAndParse(values.get("duration")),
+                DurationStyle.detectAndParse(values.get("warmup")),
+                Integer.parseInt(values.get("accounts")),
+                parseMix(values.get("mix")),
+                DurationStyle.detectAndParse(values.get("timeout")),
+                Long.parseLong(values.get("seed")),
+                Path.of(values.get("report"))
+        );
+    }
+
+    private static Map<LoadOperation, Integer> parseMix(String mix) {
+        Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.split(":");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("expected operation:weight, got " + entry);
+            }
+            weights.put(LoadOperation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        return weights;
+    }
+
+}
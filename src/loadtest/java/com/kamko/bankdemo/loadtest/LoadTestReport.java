@@ -0,0 +1,53 @@
+package com.kamko.bankdemo.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Machine-readable result of a run, written as JSON. Latencies are in milliseconds; {@code histogram} is the
+ * compressed, base64 encoded HdrHistogram of the response time in nanoseconds, so runs can be merged or plotted
+ * again later without rerunning them.
+ *
+ * @param seconds length of the recorded part of the run, the warmup excluded
+ */
+public record LoadTestReport(String baseUrl, double rate, double seconds, int accounts,
+                             Map<LoadOperation, Integer> mix, long seed, Map<LoadOperation, Endpoint> endpoints) {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    /**
+     * @param failures requests without a response, not included in {@code statuses}
+     */
+    public record Endpoint(String endpoint, long requests, double throughput, Map<Integer, Long> statuses,
+                           long failures, Latency responseTime, Latency serviceTime, String histogram) {
+    }
+
+    public record Latency(double mean, double p50, double p90, double p99, double p999, double max) {
+
+        static Latency of(Histogram histogram) {
+            if (histogram.getTotalCount() == 0) {
+                return new Latency(0, 0, 0, 0, 0, 0);
+            }
+            return new Latency(
+                    histogram.getMean() / NANOS_PER_MILLI,
+                    histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                    histogram.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                    histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                    histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                    histogram.getMaxValue() / NANOS_PER_MILLI
+            );
+        }
+
+    }
+
+    static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+}
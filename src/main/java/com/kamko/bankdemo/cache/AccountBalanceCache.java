@@ -0,0 +1,66 @@
+package com.kamko.bankdemo.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kamko.bankdemo.config.AccountCacheProperties;
+import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
+import com.kamko.bankdemo.util.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded W-TinyLFU cache of account balances keyed by account id, published as the {@code account.balance}
+ * cache metrics (hits, misses, evictions, size).
+ * <p>
+ * Write paths call {@link #evict} inside their transaction and the next read loads the committed balance. The
+ * eviction is deferred until the transaction commits, so a read in between can't cache the state the write is
+ * about to replace. Writes never put their own result, since two commits can run their callbacks in either order
+ * and the older balance would win. A read that loads just before a commit can still cache the older balance,
+ * which is why entries also expire after the configured TTL.
+ */
+@Component
+public class AccountBalanceCache {
+
+    public static final String NAME = "account.balance";
+
+    private final Cache<Long, AccountIdNameBalanceDto> balances;
+
+    public AccountBalanceCache(AccountCacheProperties properties, MeterRegistry meterRegistry) {
+        this.balances = properties.enabled()
+                ? Caffeine.newBuilder()
+                .maximumSize(properties.maxSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build()
+                : null;
+        if (balances != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, balances, NAME);
+        }
+    }
+
+    /**
+     * Returns the cached balance or loads it with {@code loader}; nothing is cached when the loader finds no
+     * account. Inside a read-write transaction the loader may see uncommitted changes, so the cache is bypassed.
+     */
+    public Optional<AccountIdNameBalanceDto> get(Long accountId,
+                                                 Function<Long, Optional<AccountIdNameBalanceDto>> loader) {
+        if (balances == null || TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loader.apply(accountId);
+        }
+        return Optional.ofNullable(balances.get(accountId, id -> loader.apply(id).orElse(null)));
+    }
+
+    public void evict(Collection<Long> accountIds) {
+        if (balances != null) {
+            AfterCommit.run(() -> balances.invalidateAll(accountIds));
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.kamko.bankdemo.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.kamko.bankdemo.config.ApproximateCountProperties;
+import com.kamko.bankdemo.service.AccountService;
+import com.kamko.bankdemo.service.TransactionLogService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Totals for {@link com.kamko.bankdemo.dto.CountMode#APPROXIMATE} pages. Only the first read of a total runs
+ * its count query on the request thread; once a value is older than the refresh interval the next read returns
+ * it and recounts in the background. Published as the {@code page.count} cache metrics.
+ */
+@Component
+public class ApproximateCounts {
+
+    public static final String NAME = "page.count";
+
+    private final LoadingCache<CountKey, Long> counts;
+
+    public ApproximateCounts(ApproximateCountProperties properties, AccountService accountService,
+                             TransactionLogService transactionLogService, MeterRegistry meterRegistry) {
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(properties.maxSize())
+                .refreshAfterWrite(properties.refreshInterval())
+                .expireAfterAccess(properties.expireAfterAccess())
+                .recordStats()
+                .build(key -> switch (key.target()) {
+                    case ACCOUNTS -> accountService.count();
+                    case ACCOUNT_TRANSACTIONS -> transactionLogService.countAccountTransactions(key.accountId());
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, counts, NAME);
+    }
+
+    public long accounts() {
+        return counts.get(new CountKey(Target.ACCOUNTS, null));
+    }
+
+    public long accountTransactions(Long accountId) {
+        return counts.get(new CountKey(Target.ACCOUNT_TRANSACTIONS, accountId));
+    }
+
+    private enum Target {
+        ACCOUNTS, ACCOUNT_TRANSACTIONS
+    }
+
+    private record CountKey(Target target, Long accountId) {
+    }
+
+}
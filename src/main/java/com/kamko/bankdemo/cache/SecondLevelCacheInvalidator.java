@@ -0,0 +1,36 @@
+package com.kamko.bankdemo.cache;
+
+import com.kamko.bankdemo.entity.Account;
+import com.kamko.bankdemo.repo.TransactionLogRepo;
+import com.kamko.bankdemo.util.AfterCommit;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps Hibernate's second-level cache in step with writes that go through plain JDBC, which Hibernate never
+ * sees. Evictions are deferred until the surrounding transaction commits, so a concurrent read can't put the
+ * old state back in between.
+ */
+@Component
+public class SecondLevelCacheInvalidator {
+
+    private final org.hibernate.Cache cache;
+
+    public SecondLevelCacheInvalidator(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    public void evictAccounts(Collection<Long> accountIds) {
+        List<Long> ids = List.copyOf(accountIds);
+        AfterCommit.run(() -> ids.forEach(id -> cache.evictEntityData(Account.class, id)));
+    }
+
+    public void evictTransactionHistory() {
+        AfterCommit.run(() -> cache.evictQueryRegion(TransactionLogRepo.HISTORY_CACHE_REGION));
+    }
+
+}
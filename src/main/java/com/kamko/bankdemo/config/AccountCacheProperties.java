@@ -0,0 +1,14 @@
+package com.kamko.bankdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @param enabled whether account balances are cached at all
+ * @param maxSize maximum number of accounts kept in the cache
+ * @param ttl     upper bound on how long an entry is served, even if no write path touched the account
+ */
+@ConfigurationProperties(prefix = "app.account.cache")
+public record AccountCacheProperties(boolean enabled, long maxSize, Duration ttl) {
+}
@@ -2,15 +2,34 @@ package com.kamko.bankdemo.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
 
 @Configuration
 public class AppConfig {
 
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    public static final String PBKDF2 = "pbkdf2";
+
     @Bean
-    PasswordEncoder encoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder encoder(PinSecurityProperties properties) {
+        PinSecurityProperties.Encoder encoder = properties.encoder();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(encoder.bcryptStrength());
+        Map<String, PasswordEncoder> encoders = Map.of(
+                BCRYPT, bcrypt,
+                ARGON2, Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8(),
+                PBKDF2, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8()
+        );
+        DelegatingPasswordEncoder delegatingEncoder = new DelegatingPasswordEncoder(encoder.id(), encoders);
+        // PINs stored before the switch to the delegating encoder are plain bcrypt hashes without an {id} prefix
+        delegatingEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegatingEncoder;
     }
 
 }
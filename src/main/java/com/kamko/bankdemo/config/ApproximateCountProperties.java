@@ -0,0 +1,15 @@
+package com.kamko.bankdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @param maxSize           maximum number of cached counts
+ * @param refreshInterval   age after which the next read triggers a count in the background and keeps serving
+ *                          the old value until it completes
+ * @param expireAfterAccess counts not read for this long are dropped instead of being refreshed
+ */
+@ConfigurationProperties(prefix = "app.pagination.approximate-count")
+public record ApproximateCountProperties(long maxSize, Duration refreshInterval, Duration expireAfterAccess) {
+}
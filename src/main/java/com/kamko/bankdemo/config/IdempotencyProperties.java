@@ -0,0 +1,15 @@
+package com.kamko.bankdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * @param cacheSize       completed requests kept in memory, older ones are answered from the table
+ * @param ttl             how long a key is remembered, a retry after that is executed as a new request
+ * @param lease           how long a claim without a response blocks retries, after that a retry takes it over
+ * @param cleanupInterval delay between runs of the job removing expired keys from the table
+ */
+@ConfigurationProperties(prefix = "app.idempotency")
+public record IdempotencyProperties(long cacheSize, Duration ttl, Duration lease, Duration cleanupInterval) {
+}
@@ -0,0 +1,20 @@
+package com.kamko.bankdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the in-memory ledger used when {@code app.account.engine} is {@code ledger}.
+ *
+ * @param shards           number of single-threaded shards accounts are spread over by id
+ * @param directory        where the shard journals and the snapshot are kept
+ * @param queueCapacity    commands allowed to wait for a shard before callers are blocked
+ * @param batchSize        maximum number of commands journalled with one fsync
+ * @param snapshotInterval delay between snapshots, each one lets the journals be truncated
+ */
+@ConfigurationProperties(prefix = "app.account.ledger")
+public record LedgerProperties(int shards, Path directory, int queueCapacity, int batchSize,
+                               Duration snapshotInterval) {
+}
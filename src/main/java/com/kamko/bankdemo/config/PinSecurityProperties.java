@@ -0,0 +1,32 @@
+package com.kamko.bankdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.security")
+public record PinSecurityProperties(Encoder encoder, Cache cache, Hashing hashing) {
+
+    /**
+     * @param id             encoder used for new hashes: {@code bcrypt}, {@code argon2} or {@code pbkdf2}
+     * @param bcryptStrength BCrypt cost factor, stored hashes with a lower one are re-hashed on verification
+     */
+    public record Encoder(String id, int bcryptStrength) {
+    }
+
+    /**
+     * @param enabled whether successful verifications are remembered at all
+     * @param maxSize maximum number of accounts kept in the cache
+     * @param ttl     how long a successful verification is trusted without running the encoder again
+     */
+    public record Cache(boolean enabled, long maxSize, Duration ttl) {
+    }
+
+    /**
+     * @param poolSize      number of hashing threads, {@code 0} means one per available processor
+     * @param queueCapacity hashing tasks allowed to wait for a thread before requests are rejected
+     */
+    public record Hashing(int poolSize, int queueCapacity) {
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.kamko.bankdemo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kamko.bankdemo.timing.ServerTimingAspect;
+import com.kamko.bankdemo.timing.ServerTimingFilter;
+import com.kamko.bankdemo.timing.ServerTimingSessionListener;
+import com.kamko.bankdemo.timing.TimingJackson2HttpMessageConverter;
+import com.kamko.bankdemo.timing.TimingValidator;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Per-request {@code Server-Timing} breakdown of the account endpoints: bean validation, PIN check, SQL,
+ * mapping and JSON serialization, reported only to requests that send {@code app.server-timing.request-header}.
+ */
+@Configuration
+@EnableConfigurationProperties(ServerTimingProperties.class)
+@ConditionalOnProperty(prefix = "app.server-timing", name = "enabled", havingValue = "true")
+public class ServerTimingConfig implements WebMvcConfigurer {
+
+    private final LocalValidatorFactoryBean validator;
+
+    public ServerTimingConfig(LocalValidatorFactoryBean validator) {
+        this.validator = validator;
+    }
+
+    @Override
+    public Validator getValidator() {
+        return new TimingValidator(validator);
+    }
+
+    @Bean
+    FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(ServerTimingProperties properties) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(properties.requestHeader()));
+        // the export streams its body, holding it back for the header would defeat that
+        registration.addUrlPatterns("/api/v1/accounts", "/api/v1/accounts/*");
+        return registration;
+    }
+
+    @Bean
+    ServerTimingAspect serverTimingAspect() {
+        return new ServerTimingAspect();
+    }
+
+    @Bean
+    TimingJackson2HttpMessageConverter timingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimingJackson2HttpMessageConverter(objectMapper);
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer serverTimingSessionListener() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                ServerTimingSessionListener.class.getName());
+    }
+
+}
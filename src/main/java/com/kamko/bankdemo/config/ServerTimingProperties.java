@@ -0,0 +1,11 @@
+package com.kamko.bankdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * @param enabled       whether requests may ask for a {@code Server-Timing} breakdown at all
+ * @param requestHeader header that asks for it, its value is ignored
+ */
+@ConfigurationProperties(prefix = "app.server-timing")
+public record ServerTimingProperties(boolean enabled, String requestHeader) {
+}
@@ -0,0 +1,24 @@
+package com.kamko.bankdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of the partitioned accounts used when {@code app.account.engine} is {@code sharded}. The application
+ * datasource is shard {@code 0}, the ones listed here follow it in order.
+ *
+ * @param rangeSize number of account ids owned by each shard, shard {@code n} owns
+ *                  {@code n * rangeSize + 1 .. (n + 1) * rangeSize}
+ * @param shards    additional databases, their schema is created with the application's changelog
+ * @param recoveryInterval how often cross-shard transfers that are decided but not applied on every shard are
+ *                         retried
+ */
+@ConfigurationProperties(prefix = "app.account.sharding")
+public record ShardingProperties(long rangeSize, List<Shard> shards, Duration recoveryInterval) {
+
+    public record Shard(String url, String username, String password) {
+    }
+
+}
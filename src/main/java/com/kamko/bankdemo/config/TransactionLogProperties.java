@@ -0,0 +1,31 @@
+package com.kamko.bankdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.transaction-log")
+public record TransactionLogProperties(WriteBehind writeBehind, Export export) {
+
+    /**
+     * @param enabled       whether log rows are journalled and written in the background instead of inside the
+     *                      money operation's transaction
+     * @param journal       append-only file holding events until they reach the {@code transaction_log} table
+     * @param queueCapacity events allowed to wait for the writer
+     * @param queueTimeout  how long a caller waits for room in the queue before writing its rows directly
+     * @param batchSize     maximum number of rows written by one flush
+     * @param flushInterval how long the writer waits for a batch to fill up before flushing what it has
+     */
+    public record WriteBehind(boolean enabled, Path journal, int queueCapacity, Duration queueTimeout,
+                              int batchSize, Duration flushInterval) {
+    }
+
+    /**
+     * @param fetchSize rows the JDBC driver fetches per round trip while exporting, the response is flushed to
+     *                  the client after each of them
+     */
+    public record Export(int fetchSize) {
+    }
+
+}
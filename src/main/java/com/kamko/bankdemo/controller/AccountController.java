@@ -1,13 +1,18 @@
 package com.kamko.bankdemo.controller;
 
+import com.kamko.bankdemo.cache.ApproximateCounts;
+import com.kamko.bankdemo.dto.CountMode;
 import com.kamko.bankdemo.dto.PageResponse;
 import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
 import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
 import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferRequest;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferResponse;
 import com.kamko.bankdemo.dto.account_operation.DepositRequest;
 import com.kamko.bankdemo.dto.account_operation.TransferRequest;
 import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
 import com.kamko.bankdemo.service.AccountService;
+import com.kamko.bankdemo.service.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -22,15 +27,17 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.concurrent.ExecutionException;
-
 @RestController
 @RequestMapping("api/v1/accounts")
 @RequiredArgsConstructor
 @Tag(name = "Account")
 public class AccountController {
 
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final AccountService accountService;
+    private final IdempotencyService idempotencyService;
+    private final ApproximateCounts approximateCounts;
 
     @Operation(summary = "get page of accounts")
     @ApiResponse(responseCode = "200", description = "OK", content = {
@@ -38,8 +45,29 @@ public class AccountController {
             @Schema(implementation = PageResponse.class))})
     @GetMapping
     public PageResponse<AccountNameBalanceDto> findAll(@RequestParam @Parameter(example = "0") Integer pageNumber,
-                                                       @RequestParam @Parameter(example = "5") Integer pageSize) {
-        return PageResponse.of(accountService.findAll(pageNumber, pageSize));
+                                                       @RequestParam @Parameter(example = "5") Integer pageSize,
+                                                       @RequestParam(defaultValue = "EXACT")
+                                                       @Parameter(description = CountMode.DESCRIPTION)
+                                                       CountMode count) {
+        return switch (count) {
+            case EXACT -> PageResponse.of(accountService.findAll(pageNumber, pageSize));
+            case NONE -> PageResponse.of(accountService.findSlice(pageNumber, pageSize));
+            case APPROXIMATE -> PageResponse.of(accountService.findSlice(pageNumber, pageSize),
+                    approximateCounts.accounts());
+        };
+    }
+
+    @Operation(summary = "get account balance")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema =
+                    @Schema(implementation = AccountIdNameBalanceDto.class))}),
+            @ApiResponse(responseCode = "404", description = "Not found", content = {
+                    @Content(schema = @Schema(hidden = true))})
+    })
+    @GetMapping("/{id}")
+    public AccountIdNameBalanceDto findById(@PathVariable @Parameter(example = "1") Long id) {
+        return accountService.findById(id);
     }
 
     @Operation(summary = "create new account")
@@ -60,11 +88,19 @@ public class AccountController {
                     @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema =
                     @Schema(implementation = AccountIdNameBalanceDto.class))}),
             @ApiResponse(responseCode = "404", description = "Not found", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "409", description = "Conflict", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "422", description = "Idempotency key reused for another request", content = {
                     @Content(schema = @Schema(hidden = true))})
     })
     @PutMapping("/deposit")
-    public AccountIdNameBalanceDto deposit(@RequestBody @Validated DepositRequest depositRequest) throws ExecutionException, InterruptedException {
-        return accountService.deposit(depositRequest);
+    public AccountIdNameBalanceDto deposit(@RequestBody @Validated DepositRequest depositRequest,
+                                           @RequestHeader(name = IDEMPOTENCY_KEY, required = false)
+                                           @Parameter(description = "repeated requests with the same key are applied once")
+                                           String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "deposit", depositRequest, AccountIdNameBalanceDto.class,
+                () -> accountService.deposit(depositRequest));
     }
 
     @Operation(summary = "withdraw funds")
@@ -77,11 +113,19 @@ public class AccountController {
             @ApiResponse(responseCode = "401", description = "Unauthorised", content = {
                     @Content(schema = @Schema(hidden = true))}),
             @ApiResponse(responseCode = "404", description = "Not found", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "409", description = "Conflict", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "422", description = "Idempotency key reused for another request", content = {
                     @Content(schema = @Schema(hidden = true))})
     })
     @PutMapping("/withdraw")
-    public AccountIdNameBalanceDto withdraw(@RequestBody @Validated WithdrawRequest withdrawRequest) {
-        return accountService.withdraw(withdrawRequest);
+    public AccountIdNameBalanceDto withdraw(@RequestBody @Validated WithdrawRequest withdrawRequest,
+                                            @RequestHeader(name = IDEMPOTENCY_KEY, required = false)
+                                            @Parameter(description = "repeated requests with the same key are applied once")
+                                            String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "withdraw", withdrawRequest, AccountIdNameBalanceDto.class,
+                () -> accountService.withdraw(withdrawRequest));
     }
 
     @Operation(summary = "transfer funds")
@@ -95,11 +139,44 @@ public class AccountController {
             @ApiResponse(responseCode = "404", description = "Not found", content = {
                     @Content(schema = @Schema(hidden = true))}),
             @ApiResponse(responseCode = "409", description = "Conflict", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "422", description = "Idempotency key reused for another request", content = {
                     @Content(schema = @Schema(hidden = true))})
     })
     @PutMapping("/transfer")
-    public void transfer(@RequestBody @Validated TransferRequest transferRequest) {
-        accountService.transfer(transferRequest);
+    public void transfer(@RequestBody @Validated TransferRequest transferRequest,
+                         @RequestHeader(name = IDEMPOTENCY_KEY, required = false)
+                         @Parameter(description = "repeated requests with the same key are applied once")
+                         String idempotencyKey) {
+        idempotencyService.execute(idempotencyKey, "transfer", transferRequest, Void.class, () -> {
+            accountService.transfer(transferRequest);
+            return null;
+        });
+    }
+
+    @Operation(summary = "transfer funds from one account to many")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema =
+                    @Schema(implementation = BatchTransferResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Bad request", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "401", description = "Unauthorised", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "404", description = "Not found", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "409", description = "Conflict", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "422", description = "Idempotency key reused for another request", content = {
+                    @Content(schema = @Schema(hidden = true))})
+    })
+    @PostMapping("/transfers/batch")
+    public BatchTransferResponse transferBatch(@RequestBody @Validated BatchTransferRequest batchTransferRequest,
+                                               @RequestHeader(name = IDEMPOTENCY_KEY, required = false)
+                                               @Parameter(description = "repeated requests with the same key are applied once")
+                                               String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "transferBatch", batchTransferRequest,
+                BatchTransferResponse.class, () -> accountService.transferBatch(batchTransferRequest));
     }
 
 }
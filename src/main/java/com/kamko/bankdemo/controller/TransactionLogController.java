@@ -1,8 +1,16 @@
 package com.kamko.bankdemo.controller;
 
+import com.kamko.bankdemo.cache.ApproximateCounts;
+import com.kamko.bankdemo.dto.CountMode;
+import com.kamko.bankdemo.dto.CursorPageResponse;
 import com.kamko.bankdemo.dto.PageResponse;
+import com.kamko.bankdemo.dto.transaction.ExportFormat;
 import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
+import com.kamko.bankdemo.exception.ShardedHistoryUnavailableException;
+import com.kamko.bankdemo.service.TransactionLogExportService;
 import com.kamko.bankdemo.service.TransactionLogService;
+import com.kamko.bankdemo.sharding.AccountShard;
+import com.kamko.bankdemo.sharding.AccountShards;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,20 +18,35 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
+@Validated
 @RequestMapping("api/v1/transaction-logs")
 @AllArgsConstructor
 @Tag(name = "TransactionLog")
 public class TransactionLogController {
 
+    private static final int MAX_SCROLL_PAGE_SIZE = 1_000;
+
     private final TransactionLogService transactionService;
+    private final ApproximateCounts approximateCounts;
+    private final TransactionLogExportService exportService;
+    private final ObjectProvider<AccountShards> accountShards;
 
     @Operation(summary = "get page of account transactions")
     @ApiResponses(value = {
@@ -31,13 +54,84 @@ public class TransactionLogController {
                     @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema =
                     @Schema(implementation = PageResponse.class))}),
             @ApiResponse(responseCode = "404", description = "Not found", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "501", description = "History is on a shard other than 0", content = {
                     @Content(schema = @Schema(hidden = true))})
     })
     @GetMapping("/{accountId}")
     public PageResponse<TransactionLogDto> findAccountTransactions(@PathVariable @Parameter(example = "1") Long accountId,
                                                                    @Parameter(example = "0") Integer pageNumber,
-                                                                   @Parameter(example = "5") Integer pageSize) {
-        return PageResponse.of(transactionService.findAccountTransactions(accountId, pageNumber, pageSize));
+                                                                   @Parameter(example = "5") Integer pageSize,
+                                                                   @RequestParam(defaultValue = "EXACT")
+                                                                   @Parameter(description = CountMode.DESCRIPTION)
+                                                                   CountMode count) {
+        requireHistoryOnShardZero(accountId);
+        return switch (count) {
+            case EXACT -> PageResponse.of(transactionService.findAccountTransactions(accountId, pageNumber, pageSize));
+            case NONE -> PageResponse.of(transactionService.findAccountTransactionSlice(accountId, pageNumber, pageSize));
+            case APPROXIMATE -> PageResponse.of(
+                    transactionService.findAccountTransactionSlice(accountId, pageNumber, pageSize),
+                    approximateCounts.accountTransactions(accountId));
+        };
+    }
+
+    @Operation(summary = "scroll account transactions from the newest, page after page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema =
+                    @Schema(implementation = CursorPageResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "404", description = "Not found", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "501", description = "History is on a shard other than 0", content = {
+                    @Content(schema = @Schema(hidden = true))})
+    })
+    @GetMapping("/{accountId}/scroll")
+    public CursorPageResponse<TransactionLogDto> scrollAccountTransactions(@PathVariable @Parameter(example = "1") Long accountId,
+                                                                           @RequestParam(required = false) String cursor,
+                                                                           @RequestParam @Positive @Max(MAX_SCROLL_PAGE_SIZE)
+                                                                           @Parameter(example = "5") Integer pageSize) {
+        requireHistoryOnShardZero(accountId);
+        return transactionService.scrollAccountTransactions(accountId, cursor, pageSize);
+    }
+
+    @Operation(summary = "download the whole account history, newest first, as NDJSON or CSV")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = "application/x-ndjson"),
+                    @Content(mediaType = "text/csv")}),
+            @ApiResponse(responseCode = "404", description = "Not found", content = {
+                    @Content(schema = @Schema(hidden = true))}),
+            @ApiResponse(responseCode = "501", description = "History is on a shard other than 0", content = {
+                    @Content(schema = @Schema(hidden = true))})
+    })
+    @GetMapping("/{accountId}/export")
+    public ResponseEntity<StreamingResponseBody> exportAccountTransactions(@PathVariable @Parameter(example = "1") Long accountId,
+                                                                           @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        requireHistoryOnShardZero(accountId);
+        ContentDisposition attachment = ContentDisposition.attachment()
+                .filename("account-" + accountId + "-transactions." + format.getExtension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, attachment.toString())
+                .body(exportService.exportAccountTransactions(accountId, format));
+    }
+
+    /**
+     * The history is read from the application datasource, which with {@code app.account.engine=sharded} is
+     * shard {@code 0}; the other shards keep their accounts' logs in their own databases.
+     */
+    private void requireHistoryOnShardZero(Long accountId) {
+        AccountShards shards = accountShards.getIfAvailable();
+        if (shards == null) {
+            return;
+        }
+        AccountShard shard = shards.shardOf(accountId);
+        if (shard.index() != 0) {
+            throw new ShardedHistoryUnavailableException(accountId, shard.index());
+        }
     }
 
 }
@@ -0,0 +1,28 @@
+package com.kamko.bankdemo.dto;
+
+/**
+ * How a page request computes {@link PageResponse.Metadata#totalElement()}.
+ */
+public enum CountMode {
+
+    /**
+     * Runs a count query whenever the total can't be derived from the page itself.
+     */
+    EXACT,
+
+    /**
+     * Skips counting: the page is fetched with one extra row to tell whether a next page exists and the total is
+     * left empty.
+     */
+    NONE,
+
+    /**
+     * Skips counting like {@link #NONE} but fills the total from a count cached per query and refreshed in the
+     * background, so it can lag behind recent writes.
+     */
+    APPROXIMATE;
+
+    public static final String DESCRIPTION = "EXACT counts every page, NONE leaves totalElement empty, "
+            + "APPROXIMATE fills it from a count refreshed in the background";
+
+}
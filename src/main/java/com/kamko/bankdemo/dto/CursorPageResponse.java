@@ -0,0 +1,16 @@
+package com.kamko.bankdemo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Use for cursor pagination")
+public record CursorPageResponse<T>(
+
+        List<T> content,
+
+        @Schema(description = "pass as cursor to get the next page, absent on the last page")
+        String nextCursor
+
+) {
+}
@@ -2,6 +2,7 @@ package com.kamko.bankdemo.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -9,11 +10,27 @@ import java.util.List;
 public record PageResponse<T>(List<T> content, Metadata metadata) {
 
     public static <T> PageResponse<T> of(Page<T> page) {
-        Metadata metadata = new Metadata(page.getNumber(), page.getSize(), page.getTotalElements());
+        Metadata metadata = new Metadata(page.getNumber(), page.getSize(), page.getTotalElements(), page.hasNext());
         return new PageResponse<>(page.getContent(), metadata);
     }
 
-    public record Metadata(int page, int size, long totalElement) {
+    public static <T> PageResponse<T> of(Slice<T> slice) {
+        Metadata metadata = new Metadata(slice.getNumber(), slice.getSize(), null, slice.hasNext());
+        return new PageResponse<>(slice.getContent(), metadata);
+    }
+
+    /**
+     * A slice with a total that wasn't counted for it, {@code hasNext} still comes from the slice itself.
+     */
+    public static <T> PageResponse<T> of(Slice<T> slice, long totalElement) {
+        Metadata metadata = new Metadata(slice.getNumber(), slice.getSize(), totalElement, slice.hasNext());
+        return new PageResponse<>(slice.getContent(), metadata);
+    }
+
+    /**
+     * @param totalElement total number of elements, {@code null} when the page was requested without counting
+     */
+    public record Metadata(int page, int size, Long totalElement, boolean hasNext) {
     }
 
 }
@@ -0,0 +1,23 @@
+package com.kamko.bankdemo.dto.account_operation;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+@Schema(description = "One recipient of a batch transfer")
+public record BatchTransferItem(
+
+        @NotNull
+        @Positive
+        @Schema(description = "ID of the account being replenished", example = "2")
+        Long toAccountId,
+
+        @NotNull
+        @Positive
+        @Schema(description = "Replenishment amount", example = "200")
+        BigDecimal amount
+
+) {
+}
@@ -0,0 +1,15 @@
+package com.kamko.bankdemo.dto.account_operation;
+
+public enum BatchTransferMode {
+
+    /**
+     * any item that can't be applied rejects the whole batch
+     */
+    ALL_OR_NOTHING,
+
+    /**
+     * items that can't be applied are reported as failed, the rest of the batch goes through
+     */
+    BEST_EFFORT
+
+}
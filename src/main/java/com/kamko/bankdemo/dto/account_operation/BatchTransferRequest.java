@@ -0,0 +1,36 @@
+package com.kamko.bankdemo.dto.account_operation;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "Transfer funds from one account to many")
+public record BatchTransferRequest(
+
+        @NotNull
+        @Positive
+        @Schema(description = "Account ID for debiting funds", example = "1")
+        Long fromAccountId,
+
+        @NotBlank
+        @Pattern(regexp = "\\d{4}$", message = "incorrect PIN code entry to batch transfer operation: ${validatedValue}")
+        @Schema(description = "pin code", example = "1111", pattern = "\\d{4}$")
+        String pin,
+
+        @Schema(description = "ALL_OR_NOTHING (default) or BEST_EFFORT")
+        BatchTransferMode mode,
+
+        @NotEmpty
+        @Size(max = 10_000)
+        @Schema(description = "recipients, applied in this order against the source balance")
+        List<@Valid @NotNull BatchTransferItem> transfers
+
+) {
+}
@@ -0,0 +1,43 @@
+package com.kamko.bankdemo.dto.account_operation;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record BatchTransferResponse(
+
+        @Schema(description = "Account ID funds were debited from")
+        Long fromAccountId,
+
+        @Schema(description = "balance of the source account after the batch")
+        BigDecimal balance,
+
+        @Schema(description = "outcome of every item, in request order")
+        List<ItemResult> results
+
+) {
+
+    public enum Status {
+        COMPLETED,
+        FAILED
+    }
+
+    public record ItemResult(
+
+            @Schema(description = "ID of the account being replenished")
+            Long toAccountId,
+
+            @Schema(description = "Replenishment amount")
+            BigDecimal amount,
+
+            @Schema(description = "outcome of the item")
+            Status status,
+
+            @Schema(description = "why the item failed, absent for completed items")
+            String error
+
+    ) {
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.kamko.bankdemo.dto.transaction;
+
+import com.kamko.bankdemo.entity.TransactionLog;
+import com.kamko.bankdemo.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a page of transactions ordered by {@code (dateTime, id)} descending. Clients
+ * only see it as an opaque URL-safe token.
+ */
+public record TransactionLogCursor(LocalDateTime dateTime, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static TransactionLogCursor after(TransactionLog transaction) {
+        return new TransactionLogCursor(transaction.getDateTime(), transaction.getId());
+    }
+
+    public static TransactionLogCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            return new TransactionLogCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.valueOf(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(token);
+        }
+    }
+
+    public String encode() {
+        String value = dateTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.SourceType;
 
@@ -13,6 +15,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "account")
 @Data
 @NoArgsConstructor
 @ToString(exclude = "transactions")
@@ -20,7 +23,8 @@ import java.util.List;
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -29,7 +33,10 @@ public class Account {
 
     private BigDecimal balance;
 
-    @CreationTimestamp(source = SourceType.DB)
+    @Version
+    private Long version;
+
+    @CreationTimestamp(source = SourceType.VM)
     private LocalDateTime createdAt;
 
     @OneToMany(mappedBy = "account")
@@ -0,0 +1,15 @@
+package com.kamko.bankdemo.exception;
+
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    private final String key;
+
+    public IdempotencyKeyMismatchException(String key) {
+        this.key = key;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Idempotency-Key %s was already used for a different request".formatted(key);
+    }
+}
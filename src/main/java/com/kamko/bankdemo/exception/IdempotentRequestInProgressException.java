@@ -0,0 +1,15 @@
+package com.kamko.bankdemo.exception;
+
+public class IdempotentRequestInProgressException extends RuntimeException {
+
+    private final String key;
+
+    public IdempotentRequestInProgressException(String key) {
+        this.key = key;
+    }
+
+    @Override
+    public String getMessage() {
+        return "request with Idempotency-Key %s is still being processed, please retry later".formatted(key);
+    }
+}
@@ -0,0 +1,15 @@
+package com.kamko.bankdemo.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    private final String cursor;
+
+    public InvalidCursorException(String cursor) {
+        this.cursor = cursor;
+    }
+
+    @Override
+    public String getMessage() {
+        return "invalid page cursor: %s".formatted(cursor);
+    }
+}
@@ -0,0 +1,15 @@
+package com.kamko.bankdemo.exception;
+
+public class InvalidIdempotencyKeyException extends RuntimeException {
+
+    private final String key;
+
+    public InvalidIdempotencyKeyException(String key) {
+        this.key = key;
+    }
+
+    @Override
+    public String getMessage() {
+        return "invalid Idempotency-Key header: %s".formatted(key);
+    }
+}
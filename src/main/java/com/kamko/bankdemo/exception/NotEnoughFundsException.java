@@ -1,15 +1,13 @@
 package com.kamko.bankdemo.exception;
 
-import com.kamko.bankdemo.entity.Account;
-
 import java.math.BigDecimal;
 
 public class NotEnoughFundsException extends RuntimeException {
 
-    public NotEnoughFundsException(Account account, BigDecimal amount) {
+    public NotEnoughFundsException(Long accountId, BigDecimal balance, BigDecimal amount) {
         super(
                 "There are not enough funds in the account with ID: %d. Current balance: %s. Attempt to withdraw: %s"
-                        .formatted(account.getId(), account.getBalance(), amount)
+                        .formatted(accountId, balance, amount)
         );
     }
 
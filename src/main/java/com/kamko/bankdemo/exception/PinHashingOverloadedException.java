@@ -0,0 +1,9 @@
+package com.kamko.bankdemo.exception;
+
+public class PinHashingOverloadedException extends RuntimeException {
+
+    public PinHashingOverloadedException() {
+        super("PIN hashing capacity is exhausted, please retry later");
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.kamko.bankdemo.exception;
+
+public class ShardedHistoryUnavailableException extends RuntimeException {
+
+    private final Long accountId;
+    private final int shard;
+
+    public ShardedHistoryUnavailableException(Long accountId, int shard) {
+        this.accountId = accountId;
+        this.shard = shard;
+    }
+
+    @Override
+    public String getMessage() {
+        return "history of account %d is kept on shard %d, only shard 0 history can be read".formatted(accountId, shard);
+    }
+}
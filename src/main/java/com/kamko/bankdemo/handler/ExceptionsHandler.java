@@ -1,7 +1,10 @@
 package com.kamko.bankdemo.handler;
 
 import com.kamko.bankdemo.exception.*;
+import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -25,6 +28,27 @@ public class ExceptionsHandler {
                 .body(exception.getMessage());
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<?> handleInvalidCursorException(RuntimeException exception) {
+        log.error(exception.getMessage(), exception);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(exception.getMessage());
+    }
+
+    @ExceptionHandler(ShardedHistoryUnavailableException.class)
+    public ResponseEntity<?> handleShardedHistoryUnavailableException(RuntimeException exception) {
+        log.warn(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED)
+                .body(exception.getMessage());
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<?> handleConstraintViolationException(RuntimeException exception) {
+        log.warn(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(exception.getMessage());
+    }
+
     @ExceptionHandler(IdMatchingException.class)
     public ResponseEntity<?> handleIdMatchingException(RuntimeException exception) {
         log.error(exception.getMessage(), exception);
@@ -32,6 +56,35 @@ public class ExceptionsHandler {
                 .body(exception.getMessage());
     }
 
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<?> handleInvalidIdempotencyKeyException(RuntimeException exception) {
+        log.error(exception.getMessage(), exception);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(exception.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<?> handleIdempotencyKeyMismatchException(RuntimeException exception) {
+        log.error(exception.getMessage(), exception);
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(exception.getMessage());
+    }
+
+    @ExceptionHandler(IdempotentRequestInProgressException.class)
+    public ResponseEntity<?> handleIdempotentRequestInProgressException(RuntimeException exception) {
+        log.warn(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(exception.getMessage());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleOptimisticLockingFailureException(RuntimeException exception) {
+        log.error(exception.getMessage(), exception);
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("the account was modified concurrently, please retry the operation");
+    }
+
     @ExceptionHandler(WrongPinException.class)
     public ResponseEntity<?> handleWrongPinException(RuntimeException exception) {
         log.error(exception.getMessage(), exception);
@@ -39,4 +92,12 @@ public class ExceptionsHandler {
                 .body(exception.getMessage());
     }
 
+    @ExceptionHandler(PinHashingOverloadedException.class)
+    public ResponseEntity<?> handlePinHashingOverloadedException(RuntimeException exception) {
+        log.warn(exception.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(exception.getMessage());
+    }
+
 }
@@ -0,0 +1,42 @@
+package com.kamko.bankdemo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One deposit, withdrawal or transfer as the caller saw it, from entering the service to the commit. Account ids
+ * that don't apply to the operation are {@code 0}.
+ */
+@Name(AccountOperationEvent.NAME)
+@Label("Account Operation")
+@Category({"Bank Demo", "Account"})
+@Description("Deposit, withdrawal or transfer through AccountService")
+@StackTrace(false)
+public class AccountOperationEvent extends Event {
+
+    public static final String NAME = "com.kamko.bankdemo.AccountOperation";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Engine")
+    @Description("AccountService implementation that served the call")
+    String engine;
+
+    @Label("From Account")
+    long fromAccountId;
+
+    @Label("To Account")
+    long toAccountId;
+
+    @Label("Amount")
+    double amount;
+
+    @Label("Outcome")
+    String outcome;
+
+}
@@ -0,0 +1,82 @@
+package com.kamko.bankdemo.jfr;
+
+import com.kamko.bankdemo.dto.account_operation.BatchTransferRequest;
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.account_operation.TransferRequest;
+import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
+import com.kamko.bankdemo.metrics.ServiceMetricsAspect;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Emits an {@link AccountOperationEvent} for every money operation of whichever {@code AccountService} engine is
+ * active. It sits right inside {@link ServiceMetricsAspect}, so the event spans the same work as the
+ * {@code service.operation} timer. Without a recording that enables the event the call goes straight through.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class FlightRecorderAspect {
+
+    @Around("execution(public * com.kamko.bankdemo.service.AccountService+.deposit(..))"
+            + " || execution(public * com.kamko.bankdemo.service.AccountService+.withdraw(..))"
+            + " || execution(public * com.kamko.bankdemo.service.AccountService+.transfer(..))"
+            + " || execution(public * com.kamko.bankdemo.service.AccountService+.transferBatch(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        AccountOperationEvent event = new AccountOperationEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        String outcome = "ok";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = ServiceMetricsAspect.outcome(e);
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = joinPoint.getSignature().getName();
+                event.engine = joinPoint.getTarget().getClass().getSimpleName();
+                event.outcome = outcome;
+                describe(event, joinPoint.getArgs()[0]);
+                event.commit();
+            }
+        }
+    }
+
+    private static void describe(AccountOperationEvent event, Object request) {
+        if (request instanceof DepositRequest deposit) {
+            event.toAccountId = id(deposit.toAccountId());
+            event.amount = amount(deposit.amount());
+        } else if (request instanceof WithdrawRequest withdraw) {
+            event.fromAccountId = id(withdraw.fromAccountId());
+            event.amount = amount(withdraw.amount());
+        } else if (request instanceof TransferRequest transfer) {
+            event.fromAccountId = id(transfer.fromAccountId());
+            event.toAccountId = id(transfer.toAccountId());
+            event.amount = amount(transfer.amount());
+        } else if (request instanceof BatchTransferRequest batch) {
+            event.fromAccountId = id(batch.fromAccountId());
+            event.amount = batch.transfers().stream()
+                    .mapToDouble(transfer -> amount(transfer.amount()))
+                    .sum();
+        }
+    }
+
+    private static long id(Long id) {
+        return id == null ? 0 : id;
+    }
+
+    private static double amount(BigDecimal amount) {
+        return amount == null ? 0 : amount.doubleValue();
+    }
+
+}
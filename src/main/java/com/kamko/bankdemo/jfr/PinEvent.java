@@ -0,0 +1,64 @@
+package com.kamko.bankdemo.jfr;
+
+import com.kamko.bankdemo.metrics.ServiceMetricsAspect;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A PIN verification or hashing on the calling thread, so the duration includes the wait for the hashing pool.
+ * A rehash after a successful verification shows up as a nested {@link #HASH} event.
+ */
+@Name(PinEvent.NAME)
+@Label("PIN Operation")
+@Category({"Bank Demo", "Security"})
+@Description("PIN verification or hashing through SecurityService")
+@StackTrace(false)
+public class PinEvent extends Event {
+
+    public static final String NAME = "com.kamko.bankdemo.PinOperation";
+    public static final String VERIFY = "verify";
+    public static final String HASH = "hash";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Account")
+    @Description("0 when hashing the PIN of a new account")
+    long accountId;
+
+    @Label("Cached")
+    @Description("Verification was answered by the cache of recent checks")
+    boolean cached;
+
+    @Label("Rehashed")
+    @Description("Stored hash was outdated and has been replaced")
+    boolean rehashed;
+
+    @Label("Outcome")
+    String outcome = "ok";
+
+    public static PinEvent start(String operation, Long accountId) {
+        PinEvent event = new PinEvent();
+        event.operation = operation;
+        event.accountId = accountId == null ? 0 : accountId;
+        event.begin();
+        return event;
+    }
+
+    public void markCached() {
+        cached = true;
+    }
+
+    public void markRehashed() {
+        rehashed = true;
+    }
+
+    public void fail(Throwable e) {
+        outcome = ServiceMetricsAspect.outcome(e);
+    }
+
+}
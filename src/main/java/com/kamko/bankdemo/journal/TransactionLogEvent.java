@@ -0,0 +1,23 @@
+package com.kamko.bankdemo.journal;
+
+import com.kamko.bankdemo.entity.Operation;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A transaction log row waiting to be written. {@code sequence} is assigned by {@link TransactionLogWriter}
+ * when the event is journalled, it is {@code 0} before that.
+ */
+public record TransactionLogEvent(long sequence, Long accountId, Operation operation, BigDecimal amount,
+                                  LocalDateTime dateTime) {
+
+    public TransactionLogEvent(Long accountId, Operation operation, BigDecimal amount) {
+        this(0, accountId, operation, amount, LocalDateTime.now());
+    }
+
+    public TransactionLogEvent withSequence(long sequence) {
+        return new TransactionLogEvent(sequence, accountId, operation, amount, dateTime);
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.kamko.bankdemo.journal;
+
+import com.kamko.bankdemo.entity.Operation;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of {@link TransactionLogEvent}s, one line per event with a CRC32 of the line. Every append
+ * is forced to disk before it returns. A line torn by a crash fails its checksum and is cut off, together with
+ * anything after it, when the journal is read back.
+ */
+@Slf4j
+public class TransactionLogJournal implements Closeable {
+
+    private static final char SEPARATOR = '|';
+
+    private final Path file;
+    private final FileChannel channel;
+
+    public TransactionLogJournal(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    public List<TransactionLogEvent> readAll() throws IOException {
+        List<TransactionLogEvent> events = new ArrayList<>();
+        long validLength = 0;
+        channel.position(0);
+        BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            TransactionLogEvent event = decode(line);
+            if (event == null) {
+                log.warn("journal {} has a corrupted record after {} bytes, discarding the rest", file, validLength);
+                break;
+            }
+            events.add(event);
+            validLength += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        channel.truncate(validLength);
+        channel.position(validLength);
+        return events;
+    }
+
+    public void append(List<TransactionLogEvent> events) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (TransactionLogEvent event : events) {
+            lines.append(encode(event)).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        long size = channel.size();
+        try {
+            channel.position(size);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            channel.truncate(size);
+            throw e;
+        }
+    }
+
+    public void truncate() throws IOException {
+        channel.truncate(0);
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static String encode(TransactionLogEvent event) {
+        String payload = String.valueOf(event.sequence()) + SEPARATOR + event.accountId() + SEPARATOR
+                + event.operation() + SEPARATOR + event.amount().toPlainString() + SEPARATOR + event.dateTime();
+        return payload + SEPARATOR + Long.toHexString(checksum(payload));
+    }
+
+    static TransactionLogEvent decode(String line) {
+        int checksumStart = line.lastIndexOf(SEPARATOR);
+        if (checksumStart < 0) {
+            return null;
+        }
+        String payload = line.substring(0, checksumStart);
+        try {
+            if (Long.parseLong(line.substring(checksumStart + 1), 16) != checksum(payload)) {
+                return null;
+            }
+            String[] fields = payload.split("\\" + SEPARATOR);
+            return new TransactionLogEvent(Long.parseLong(fields[0]), Long.valueOf(fields[1]),
+                    Operation.valueOf(fields[2]), new BigDecimal(fields[3]), LocalDateTime.parse(fields[4]));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static long checksum(String payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+}
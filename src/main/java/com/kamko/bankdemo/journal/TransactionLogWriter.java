@@ -0,0 +1,287 @@
+package com.kamko.bankdemo.journal;
+
+import com.kamko.bankdemo.cache.SecondLevelCacheInvalidator;
+import com.kamko.bankdemo.config.TransactionLogProperties;
+import com.kamko.bankdemo.util.PooledSequence;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind pipeline for transaction log rows. {@link #submit} journals the events, forces them to disk and
+ * puts them on a bounded queue; a background thread drains the queue into {@code transaction_log} in JDBC
+ * batches. Each batch moves the checkpoint in {@code transaction_log_checkpoint} in the same transaction, so on
+ * startup the journal is replayed from the checkpoint and nothing is written twice. Once every journalled event
+ * is in the table the journal is truncated.
+ * <p>
+ * Events are submitted after the money operation has committed, so that a rolled back operation leaves nothing
+ * behind. The price is a short window: a crash after the commit but before the journal is forced loses the
+ * operation's log rows, while its balance change stays.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.transaction-log.write-behind", name = "enabled", havingValue = "true")
+public class TransactionLogWriter implements SmartLifecycle {
+
+    private static final String INSERT_LOG = """
+            INSERT INTO transaction_log (id, account_id, operation, amount, date_time)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+    private static final String SELECT_CHECKPOINT = "SELECT last_sequence FROM transaction_log_checkpoint WHERE id = 1";
+    private static final String UPDATE_CHECKPOINT = "UPDATE transaction_log_checkpoint SET last_sequence = ? WHERE id = 1";
+
+    private final TransactionLogProperties.WriteBehind properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SecondLevelCacheInvalidator cacheInvalidator;
+    private final PooledSequence logIds;
+    private final BlockingQueue<TransactionLogEvent> queue = new LinkedBlockingQueue<>();
+    private final Semaphore queueCapacity;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Timer flushTimer;
+
+    private TransactionLogJournal journal;
+    private Thread thread;
+    private volatile boolean running;
+    private long lastAppended;
+    private volatile long lastFlushed;
+
+    public TransactionLogWriter(TransactionLogProperties properties, JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                SecondLevelCacheInvalidator cacheInvalidator, MeterRegistry meterRegistry) {
+        this.properties = properties.writeBehind();
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cacheInvalidator = cacheInvalidator;
+        this.logIds = new PooledSequence(jdbcTemplate, "transaction_log_seq");
+        this.queueCapacity = new Semaphore(this.properties.queueCapacity());
+        this.flushTimer = Timer.builder("transaction.log.flush")
+                .register(meterRegistry);
+        Gauge.builder("transaction.log.queue.size", queue, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Journals the events and hands them to the background writer. Waits up to {@code queue-timeout} for room in
+     * the queue, without holding up other callers; if there is none, or the journal can't be written, the rows go
+     * straight to the table instead of being lost.
+     */
+    public void submit(List<TransactionLogEvent> events) {
+        if (!reserve(events.size())) {
+            log.warn("transaction log queue is full, writing {} events directly", events.size());
+            insertDirectly(events);
+            return;
+        }
+        appendLock.lock();
+        try {
+            List<TransactionLogEvent> sequenced = new ArrayList<>(events.size());
+            for (TransactionLogEvent event : events) {
+                sequenced.add(event.withSequence(lastAppended + sequenced.size() + 1));
+            }
+            journal.append(sequenced);
+            lastAppended += sequenced.size();
+            // room is reserved, so this never blocks and the queue keeps the journal's order
+            queue.addAll(sequenced);
+        } catch (IOException e) {
+            queueCapacity.release(events.size());
+            log.error("failed to journal transaction log events, writing them directly", e);
+            insertDirectly(events);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private boolean reserve(int events) {
+        if (events > properties.queueCapacity()) {
+            return false;
+        }
+        try {
+            return queueCapacity.tryAcquire(events, properties.queueTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void insertDirectly(List<TransactionLogEvent> events) {
+        // an interrupted caller still gets its rows, the connection pool would refuse it otherwise
+        boolean interrupted = Thread.interrupted();
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(events));
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            journal = new TransactionLogJournal(properties.journal());
+            long checkpoint = jdbcTemplate.queryForObject(SELECT_CHECKPOINT, Long.class);
+            List<TransactionLogEvent> pending = journal.readAll().stream()
+                    .filter(event -> event.sequence() > checkpoint)
+                    .toList();
+            lastAppended = pending.isEmpty() ? checkpoint : pending.get(pending.size() - 1).sequence();
+            lastFlushed = checkpoint;
+            flushAll(pending);
+            if (!pending.isEmpty()) {
+                log.info("replayed {} transaction log events from {}", pending.size(), properties.journal());
+            }
+            journal.truncate();
+        } catch (IOException e) {
+            throw new UncheckedIOException("can't open transaction log journal " + properties.journal(), e);
+        }
+        running = true;
+        thread = new Thread(this::run, "transaction-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compact();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("failed to close transaction log journal", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the web server, so requests never log into a stopped writer.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void run() {
+        List<TransactionLogEvent> batch = new ArrayList<>(properties.batchSize());
+        while (running) {
+            try {
+                fill(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                flush(batch);
+                batch.clear();
+                compact();
+            } catch (RuntimeException e) {
+                log.error("failed to flush {} transaction log events, retrying", batch.size(), e);
+                sleep();
+            }
+        }
+        // clears the interrupt from stop(), so the last flush isn't aborted by it
+        Thread.interrupted();
+        queue.drainTo(batch);
+        try {
+            flushAll(batch);
+        } catch (RuntimeException e) {
+            log.error("failed to flush transaction log events on shutdown, they stay in the journal", e);
+        }
+    }
+
+    private void fill(List<TransactionLogEvent> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + properties.flushInterval().toNanos();
+        while (batch.size() < properties.batchSize()) {
+            long remaining = deadline - System.nanoTime();
+            TransactionLogEvent event = queue.poll(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+            if (event == null) {
+                return;
+            }
+            batch.add(event);
+            int drained = queue.drainTo(batch, properties.batchSize() - batch.size());
+            queueCapacity.release(drained + 1);
+        }
+    }
+
+    private void flushAll(List<TransactionLogEvent> events) {
+        for (int from = 0; from < events.size(); from += properties.batchSize()) {
+            flush(events.subList(from, Math.min(from + properties.batchSize(), events.size())));
+        }
+    }
+
+    private void flush(List<TransactionLogEvent> batch) {
+        long sequence = batch.get(batch.size() - 1).sequence();
+        flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            insert(batch);
+            jdbcTemplate.update(UPDATE_CHECKPOINT, sequence);
+        }));
+        lastFlushed = sequence;
+    }
+
+    private void insert(List<TransactionLogEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT_LOG, events, events.size(), (ps, event) -> {
+            ps.setLong(1, logIds.next());
+            ps.setLong(2, event.accountId());
+            ps.setString(3, event.operation().name());
+            ps.setBigDecimal(4, event.amount());
+            ps.setTimestamp(5, Timestamp.valueOf(event.dateTime()));
+        });
+        cacheInvalidator.evictTransactionHistory();
+    }
+
+    private void compact() {
+        if (!appendLock.tryLock()) {
+            return;
+        }
+        try {
+            if (lastAppended == lastFlushed) {
+                journal.truncate();
+            }
+        } catch (IOException e) {
+            log.warn("failed to truncate transaction log journal", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(properties.flushInterval().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,284 @@
+package com.kamko.bankdemo.ledger;
+
+import com.kamko.bankdemo.config.LedgerProperties;
+import com.kamko.bankdemo.repo.AccountRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory balances split over {@link LedgerShard}s by account id. A transfer is a payout on the source's shard
+ * followed by a credit on each recipient's shard; credits of a journalled payout that never reached the
+ * recipient are found again on startup and re-applied.
+ * <p>
+ * Startup restores the last snapshot, replays every journal on top of it and writes a fresh snapshot, which
+ * lets the journals be truncated. Snapshots are also taken every {@code snapshot-interval} and on shutdown,
+ * with all shards paused between two batches. After each one the balances are copied to the {@code account}
+ * table, so the JPA engine can take over from where the ledger stopped. Recovered accounts the table doesn't
+ * have, e.g. from a run against a database that is gone by now, are dropped together with their pending credits
+ * before the shards start, so their ids can't bring the old balances back once the table hands them out again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.account", name = "engine", havingValue = "ledger")
+public class Ledger implements SmartLifecycle {
+
+    private static final String SNAPSHOT = "ledger.snapshot";
+
+    private final LedgerProperties properties;
+    private final AccountRepo accountRepo;
+    private final Map<String, LedgerCommand.Credit> pendingCredits = new ConcurrentHashMap<>();
+
+    private LedgerShard[] shards;
+    private ScheduledExecutorService snapshotScheduler;
+    private volatile boolean running;
+
+    public Ledger(LedgerProperties properties, AccountRepo accountRepo) {
+        this.properties = properties;
+        this.accountRepo = accountRepo;
+    }
+
+    public Optional<LedgerAccount> find(long accountId) {
+        return Optional.ofNullable(shard(accountId).find(accountId));
+    }
+
+    public LedgerAccount open(long accountId, String name, BigDecimal balance) {
+        return await(shard(accountId).submit(new LedgerCommand.Open(accountId, name, balance)));
+    }
+
+    /**
+     * Adds an account that was just inserted into the table, fails if the ledger already holds its id.
+     */
+    public LedgerAccount create(long accountId, String name, BigDecimal balance) {
+        return await(shard(accountId).submit(new LedgerCommand.Create(accountId, name, balance)));
+    }
+
+    public LedgerAccount deposit(long accountId, BigDecimal amount) {
+        return await(shard(accountId).submit(new LedgerCommand.Deposit(accountId, amount)));
+    }
+
+    public LedgerAccount withdraw(long accountId, BigDecimal amount) {
+        return await(shard(accountId).submit(new LedgerCommand.Withdraw(accountId, amount)));
+    }
+
+    /**
+     * Debits the source and waits until every accepted transfer is credited. Recipients have to exist, the
+     * source's shard can't check accounts of other shards.
+     */
+    public PayoutResult payout(long fromAccountId, List<LedgerCommand.Transfer> transfers, boolean allOrNothing) {
+        LedgerCommand.Payout payout = new LedgerCommand.Payout(UUID.randomUUID().toString(), fromAccountId,
+                allOrNothing, transfers);
+        PayoutResult result = await(shard(fromAccountId).submit(payout));
+        List<CompletableFuture<Object>> credits = result.credits().stream()
+                .map(credit -> shard(credit.accountId()).submit(credit))
+                .toList();
+        credits.forEach(Ledger::await);
+        return result;
+    }
+
+    @Override
+    public void start() {
+        Path directory = properties.directory();
+        shards = new LedgerShard[properties.shards()];
+        pendingCredits.clear();
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new LedgerShard(i, new LedgerJournal(directory.resolve("shard-" + i + ".journal")),
+                        properties.queueCapacity(), properties.batchSize(), pendingCredits);
+            }
+            recover(directory);
+            retainKnownAccounts();
+        } catch (IOException e) {
+            throw new UncheckedIOException("can't restore the ledger from " + directory, e);
+        }
+        for (LedgerShard shard : shards) {
+            shard.start();
+        }
+        running = true;
+        snapshot();
+        List<LedgerCommand.Credit> unfinished = List.copyOf(pendingCredits.values());
+        unfinished.forEach(credit -> shard(credit.accountId()).submit(credit));
+        if (!unfinished.isEmpty()) {
+            log.info("re-applying {} credits of interrupted transfers", unfinished.size());
+        }
+
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.snapshotInterval().toMillis();
+        snapshotScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (RuntimeException e) {
+                log.error("ledger snapshot failed", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        snapshotScheduler.shutdownNow();
+        try {
+            snapshotScheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshot();
+        running = false;
+        for (LedgerShard shard : shards) {
+            shard.stop();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the web server, so requests never reach a stopped ledger.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Pauses every shard, writes their accounts and the pending credits to the snapshot and truncates the
+     * journals, then lets the shards go on.
+     */
+    void snapshot() {
+        CyclicBarrier barrier = new CyclicBarrier(shards.length + 1);
+        for (LedgerShard shard : shards) {
+            shard.pause(() -> {
+                awaitBarrier(barrier);
+                awaitBarrier(barrier);
+            });
+        }
+        SortedMap<Long, BigDecimal> balances = new TreeMap<>();
+        awaitBarrier(barrier);
+        try {
+            List<LedgerCommand> snapshot = new ArrayList<>();
+            for (LedgerShard shard : shards) {
+                for (LedgerAccount account : shard.accounts()) {
+                    snapshot.add(new LedgerCommand.Open(account.id(), account.name(), account.balance()));
+                    balances.put(account.id(), account.balance());
+                }
+            }
+            snapshot.addAll(pendingCredits.values());
+            LedgerSnapshot.write(properties.directory().resolve(SNAPSHOT), snapshot);
+            for (LedgerShard shard : shards) {
+                shard.journal().truncate();
+            }
+        } catch (IOException e) {
+            log.error("failed to write the ledger snapshot, journals are kept", e);
+            balances.clear();
+        } finally {
+            awaitBarrier(barrier);
+        }
+        try {
+            accountRepo.updateBalances(balances);
+        } catch (RuntimeException e) {
+            log.warn("failed to copy ledger balances to the account table", e);
+        }
+    }
+
+    private void recover(Path directory) throws IOException {
+        Set<String> appliedCredits = new HashSet<>();
+        for (LedgerCommand command : LedgerSnapshot.read(directory.resolve(SNAPSHOT))) {
+            if (command instanceof LedgerCommand.Credit credit) {
+                pendingCredits.put(credit.creditId(), credit);
+            } else {
+                shard(command.accountId()).replay(List.of(command), appliedCredits);
+            }
+        }
+        int replayed = 0;
+        for (LedgerShard shard : shards) {
+            List<LedgerCommand> journalled = shard.journal().readAll();
+            shard.replay(journalled, appliedCredits);
+            replayed += journalled.size();
+        }
+        // a credit may be replayed before the payout that registered it, which lives in another journal
+        pendingCredits.keySet().removeAll(appliedCredits);
+        if (replayed > 0) {
+            log.info("replayed {} ledger commands from {}", replayed, directory);
+        }
+    }
+
+    private void retainKnownAccounts() {
+        Set<Long> recovered = new HashSet<>();
+        for (LedgerShard shard : shards) {
+            shard.accounts().forEach(account -> recovered.add(account.id()));
+        }
+        pendingCredits.values().forEach(credit -> recovered.add(credit.accountId()));
+        if (recovered.isEmpty()) {
+            return;
+        }
+        Set<Long> known = accountRepo.findExistingIds(recovered);
+        List<LedgerAccount> dropped = new ArrayList<>();
+        for (LedgerShard shard : shards) {
+            dropped.addAll(shard.retainAccounts(known));
+        }
+        int droppedCredits = pendingCredits.size();
+        pendingCredits.values().removeIf(credit -> !known.contains(credit.accountId()));
+        droppedCredits -= pendingCredits.size();
+        if (!dropped.isEmpty() || droppedCredits > 0) {
+            BigDecimal total = dropped.stream().map(LedgerAccount::balance).reduce(BigDecimal.ZERO, BigDecimal::add);
+            log.warn("dropped {} ledger accounts holding {} and {} pending credits the account table doesn't have",
+                    dropped.size(), total, droppedCredits);
+        }
+    }
+
+    private LedgerShard shard(long accountId) {
+        return shards[(int) Math.floorMod(accountId, (long) shards.length)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T await(CompletableFuture<Object> result) {
+        try {
+            return (T) result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void awaitBarrier(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while taking a ledger snapshot", e);
+        } catch (BrokenBarrierException e) {
+            throw new IllegalStateException("ledger snapshot was interrupted", e);
+        }
+    }
+
+}
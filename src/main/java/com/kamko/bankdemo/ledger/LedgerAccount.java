@@ -0,0 +1,15 @@
+package com.kamko.bankdemo.ledger;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable balance of an account as held by its {@link LedgerShard}, replaced on every change so readers on
+ * other threads always see a consistent value.
+ */
+public record LedgerAccount(long id, String name, BigDecimal balance) {
+
+    LedgerAccount withBalance(BigDecimal balance) {
+        return new LedgerAccount(id, name, balance);
+    }
+
+}
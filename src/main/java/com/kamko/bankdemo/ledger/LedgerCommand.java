@@ -0,0 +1,46 @@
+package com.kamko.bankdemo.ledger;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Input of a {@link LedgerShard}. Commands are journalled before they are applied and applying one depends only
+ * on the state of its shard, so replaying a journal reproduces the same balances, rejections included.
+ */
+public sealed interface LedgerCommand {
+
+    long accountId();
+
+    /**
+     * Adds an account, does nothing if the shard already has it.
+     */
+    record Open(long accountId, String name, BigDecimal balance) implements LedgerCommand {
+    }
+
+    /**
+     * Adds an account that was just inserted into the table, rejected if the shard already has one with its id.
+     */
+    record Create(long accountId, String name, BigDecimal balance) implements LedgerCommand {
+    }
+
+    record Deposit(long accountId, BigDecimal amount) implements LedgerCommand {
+    }
+
+    record Withdraw(long accountId, BigDecimal amount) implements LedgerCommand {
+    }
+
+    /**
+     * Debits the source for every transfer that it can cover, checked in order. Each accepted transfer becomes
+     * a {@link Credit} that stays pending until the recipient's shard applies it.
+     */
+    record Payout(String payoutId, long accountId, boolean allOrNothing, List<Transfer> transfers)
+            implements LedgerCommand {
+    }
+
+    record Transfer(long toAccountId, BigDecimal amount) {
+    }
+
+    record Credit(String creditId, long accountId, BigDecimal amount) implements LedgerCommand {
+    }
+
+}
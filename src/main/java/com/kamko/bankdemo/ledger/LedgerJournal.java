@@ -0,0 +1,197 @@
+package com.kamko.bankdemo.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of {@link LedgerCommand}s, one line per command with a CRC32 of the line. A shard appends a
+ * whole batch with one write and one fsync. A line torn by a crash fails its checksum and is cut off, together
+ * with anything after it, when the journal is read back.
+ */
+@Slf4j
+public class LedgerJournal implements Closeable {
+
+    private static final char SEPARATOR = '|';
+    private static final String OPEN = "O";
+    private static final String CREATE = "N";
+    private static final String DEPOSIT = "D";
+    private static final String WITHDRAW = "W";
+    private static final String PAYOUT = "P";
+    private static final String CREDIT = "C";
+    private static final String ALL_OR_NOTHING = "A";
+    private static final String BEST_EFFORT = "B";
+
+    private final Path file;
+    private final FileChannel channel;
+
+    public LedgerJournal(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    public List<LedgerCommand> readAll() throws IOException {
+        List<LedgerCommand> commands = new ArrayList<>();
+        long validLength = 0;
+        channel.position(0);
+        BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            LedgerCommand command = decode(line);
+            if (command == null) {
+                log.warn("journal {} has a corrupted record after {} bytes, discarding the rest", file, validLength);
+                break;
+            }
+            commands.add(command);
+            validLength += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        channel.truncate(validLength);
+        channel.position(validLength);
+        return commands;
+    }
+
+    public void append(List<LedgerCommand> commands) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(encodeLines(commands).getBytes(StandardCharsets.UTF_8));
+        long size = channel.size();
+        try {
+            channel.position(size);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            channel.truncate(size);
+            throw e;
+        }
+    }
+
+    public void truncate() throws IOException {
+        channel.truncate(0);
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static String encodeLines(List<? extends LedgerCommand> commands) {
+        StringBuilder lines = new StringBuilder();
+        for (LedgerCommand command : commands) {
+            lines.append(encode(command)).append('\n');
+        }
+        return lines.toString();
+    }
+
+    static String encode(LedgerCommand command) {
+        String payload;
+        if (command instanceof LedgerCommand.Open open) {
+            payload = join(OPEN, open.accountId(),
+                    Base64.getUrlEncoder().encodeToString(open.name().getBytes(StandardCharsets.UTF_8)),
+                    open.balance().toPlainString());
+        } else if (command instanceof LedgerCommand.Create create) {
+            payload = join(CREATE, create.accountId(),
+                    Base64.getUrlEncoder().encodeToString(create.name().getBytes(StandardCharsets.UTF_8)),
+                    create.balance().toPlainString());
+        } else if (command instanceof LedgerCommand.Deposit deposit) {
+            payload = join(DEPOSIT, deposit.accountId(), deposit.amount().toPlainString());
+        } else if (command instanceof LedgerCommand.Withdraw withdraw) {
+            payload = join(WITHDRAW, withdraw.accountId(), withdraw.amount().toPlainString());
+        } else if (command instanceof LedgerCommand.Payout payout) {
+            payload = join(PAYOUT, payout.payoutId(), payout.accountId(),
+                    payout.allOrNothing() ? ALL_OR_NOTHING : BEST_EFFORT, encodeTransfers(payout.transfers()));
+        } else {
+            LedgerCommand.Credit credit = (LedgerCommand.Credit) command;
+            payload = join(CREDIT, credit.creditId(), credit.accountId(), credit.amount().toPlainString());
+        }
+        return payload + SEPARATOR + Long.toHexString(checksum(payload));
+    }
+
+    static LedgerCommand decode(String line) {
+        int checksumStart = line.lastIndexOf(SEPARATOR);
+        if (checksumStart < 0) {
+            return null;
+        }
+        String payload = line.substring(0, checksumStart);
+        try {
+            if (Long.parseLong(line.substring(checksumStart + 1), 16) != checksum(payload)) {
+                return null;
+            }
+            String[] fields = payload.split("\\" + SEPARATOR);
+            return switch (fields[0]) {
+                case OPEN -> new LedgerCommand.Open(Long.parseLong(fields[1]),
+                        new String(Base64.getUrlDecoder().decode(fields[2]), StandardCharsets.UTF_8),
+                        new BigDecimal(fields[3]));
+                case CREATE -> new LedgerCommand.Create(Long.parseLong(fields[1]),
+                        new String(Base64.getUrlDecoder().decode(fields[2]), StandardCharsets.UTF_8),
+                        new BigDecimal(fields[3]));
+                case DEPOSIT -> new LedgerCommand.Deposit(Long.parseLong(fields[1]), new BigDecimal(fields[2]));
+                case WITHDRAW -> new LedgerCommand.Withdraw(Long.parseLong(fields[1]), new BigDecimal(fields[2]));
+                case PAYOUT -> new LedgerCommand.Payout(fields[1], Long.parseLong(fields[2]),
+                        ALL_OR_NOTHING.equals(fields[3]), decodeTransfers(fields[4]));
+                case CREDIT -> new LedgerCommand.Credit(fields[1], Long.parseLong(fields[2]), new BigDecimal(fields[3]));
+                default -> null;
+            };
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String join(Object... fields) {
+        StringBuilder payload = new StringBuilder();
+        for (Object field : fields) {
+            if (!payload.isEmpty()) {
+                payload.append(SEPARATOR);
+            }
+            payload.append(field);
+        }
+        return payload.toString();
+    }
+
+    private static String encodeTransfers(List<LedgerCommand.Transfer> transfers) {
+        StringBuilder encoded = new StringBuilder();
+        for (LedgerCommand.Transfer transfer : transfers) {
+            if (!encoded.isEmpty()) {
+                encoded.append(',');
+            }
+            encoded.append(transfer.toAccountId()).append(':').append(transfer.amount().toPlainString());
+        }
+        return encoded.toString();
+    }
+
+    private static List<LedgerCommand.Transfer> decodeTransfers(String encoded) {
+        List<LedgerCommand.Transfer> transfers = new ArrayList<>();
+        for (String transfer : encoded.split(",")) {
+            int colon = transfer.indexOf(':');
+            transfers.add(new LedgerCommand.Transfer(Long.parseLong(transfer.substring(0, colon)),
+                    new BigDecimal(transfer.substring(colon + 1))));
+        }
+        return transfers;
+    }
+
+    private static long checksum(String payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+}
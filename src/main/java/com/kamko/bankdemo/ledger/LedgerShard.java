@@ -0,0 +1,276 @@
+package com.kamko.bankdemo.ledger;
+
+import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.kamko.bankdemo.exception.NotEnoughFundsException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the balances of a subset of accounts. One thread takes commands off the queue in batches, appends the
+ * batch to the journal with a single fsync and only then applies the commands one by one and completes their
+ * futures. No other thread ever changes the balances, so applying a command needs no locks; other threads
+ * only read them.
+ */
+@Slf4j
+class LedgerShard {
+
+    private final int index;
+    private final LedgerJournal journal;
+    private final int batchSize;
+    private final BlockingQueue<Request> queue;
+    private final Map<Long, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    private final Map<String, LedgerCommand.Credit> pendingCredits;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * @param pendingCredits shared by all shards: a payout adds its credits, the recipient's shard removes them
+     */
+    LedgerShard(int index, LedgerJournal journal, int queueCapacity, int batchSize,
+                Map<String, LedgerCommand.Credit> pendingCredits) {
+        this.index = index;
+        this.journal = journal;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.pendingCredits = pendingCredits;
+    }
+
+    private record Request(LedgerCommand command, CompletableFuture<Object> result, Runnable pause) {
+    }
+
+    CompletableFuture<Object> submit(LedgerCommand command) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        enqueue(new Request(command, result, null));
+        return result;
+    }
+
+    /**
+     * Makes the shard thread run {@code pause} between two batches, with nothing journalled but not applied.
+     */
+    void pause(Runnable pause) {
+        enqueue(new Request(null, null, pause));
+    }
+
+    LedgerAccount find(long accountId) {
+        return accounts.get(accountId);
+    }
+
+    Collection<LedgerAccount> accounts() {
+        return accounts.values();
+    }
+
+    /**
+     * Drops the accounts whose ids are not in {@code known}, only while the shard isn't running.
+     *
+     * @return the dropped accounts
+     */
+    List<LedgerAccount> retainAccounts(Set<Long> known) {
+        List<LedgerAccount> dropped = new ArrayList<>();
+        accounts.values().removeIf(account -> {
+            if (known.contains(account.id())) {
+                return false;
+            }
+            dropped.add(account);
+            return true;
+        });
+        return dropped;
+    }
+
+    LedgerJournal journal() {
+        return journal;
+    }
+
+    /**
+     * Applies a snapshot or journal without journalling it again. Commands rejected originally are rejected
+     * again, ids of applied credits are collected because their payout may be replayed by another shard later.
+     */
+    void replay(List<LedgerCommand> commands, Set<String> appliedCredits) {
+        for (LedgerCommand command : commands) {
+            try {
+                apply(command);
+                if (command instanceof LedgerCommand.Credit credit) {
+                    appliedCredits.add(credit.creditId());
+                }
+            } catch (RuntimeException e) {
+                log.debug("replayed command {} was rejected: {}", command, e.getMessage());
+            }
+        }
+    }
+
+    void start() {
+        running = true;
+        thread = new Thread(this::run, "ledger-shard-" + index);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Request> rejected = new ArrayList<>();
+        queue.drainTo(rejected);
+        rejected.stream()
+                .filter(request -> request.result() != null)
+                .forEach(request -> request.result().completeExceptionally(
+                        new IllegalStateException("ledger shard " + index + " is stopped")));
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("failed to close ledger journal of shard {}", index, e);
+        }
+    }
+
+    private void enqueue(Request request) {
+        if (!running) {
+            throw new IllegalStateException("ledger shard " + index + " is not running");
+        }
+        try {
+            queue.put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while submitting a ledger command", e);
+        }
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>(batchSize);
+        List<LedgerCommand> commands = new ArrayList<>(batchSize);
+        while (running) {
+            Request first;
+            try {
+                first = queue.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first.pause() != null) {
+                try {
+                    first.pause().run();
+                } catch (RuntimeException e) {
+                    log.warn("ledger shard {} was released from an aborted pause", index, e);
+                }
+                continue;
+            }
+            batch.add(first);
+            // a pause ends the batch, so that everything journalled before it is also applied before it
+            Request next;
+            while (batch.size() < batchSize && (next = queue.peek()) != null && next.pause() == null) {
+                batch.add(queue.poll());
+            }
+            batch.forEach(request -> commands.add(request.command()));
+            try {
+                journal.append(commands);
+                for (Request request : batch) {
+                    complete(request);
+                }
+            } catch (IOException e) {
+                log.error("failed to journal {} ledger commands on shard {}", batch.size(), index, e);
+                UncheckedIOException failure = new UncheckedIOException("ledger journal is not writable", e);
+                batch.forEach(request -> request.result().completeExceptionally(failure));
+            }
+            batch.clear();
+            commands.clear();
+        }
+    }
+
+    private void complete(Request request) {
+        try {
+            request.result().complete(apply(request.command()));
+        } catch (RuntimeException e) {
+            request.result().completeExceptionally(e);
+        }
+    }
+
+    private Object apply(LedgerCommand command) {
+        if (command instanceof LedgerCommand.Open open) {
+            return accounts.computeIfAbsent(open.accountId(),
+                    id -> new LedgerAccount(id, open.name(), open.balance()));
+        }
+        if (command instanceof LedgerCommand.Create create) {
+            if (accounts.containsKey(create.accountId())) {
+                throw new IllegalStateException("ledger already holds account " + create.accountId());
+            }
+            return update(new LedgerAccount(create.accountId(), create.name(), create.balance()));
+        }
+        if (command instanceof LedgerCommand.Deposit deposit) {
+            return credit(deposit.accountId(), deposit.amount());
+        }
+        if (command instanceof LedgerCommand.Withdraw withdraw) {
+            LedgerAccount account = get(withdraw.accountId());
+            if (account.balance().compareTo(withdraw.amount()) < 0) {
+                throw new NotEnoughFundsException(account.id(), account.balance(), withdraw.amount());
+            }
+            return update(account.withBalance(account.balance().subtract(withdraw.amount())));
+        }
+        if (command instanceof LedgerCommand.Payout payout) {
+            return payout(payout);
+        }
+        LedgerCommand.Credit credit = (LedgerCommand.Credit) command;
+        LedgerAccount account = credit(credit.accountId(), credit.amount());
+        pendingCredits.remove(credit.creditId());
+        return account;
+    }
+
+    private PayoutResult payout(LedgerCommand.Payout payout) {
+        LedgerAccount account = get(payout.accountId());
+        BigDecimal available = account.balance();
+        List<String> errors = new ArrayList<>(payout.transfers().size());
+        List<LedgerCommand.Credit> credits = new ArrayList<>(payout.transfers().size());
+        for (int i = 0; i < payout.transfers().size(); i++) {
+            LedgerCommand.Transfer transfer = payout.transfers().get(i);
+            if (available.compareTo(transfer.amount()) < 0) {
+                NotEnoughFundsException rejection =
+                        new NotEnoughFundsException(account.id(), available, transfer.amount());
+                if (payout.allOrNothing()) {
+                    throw rejection;
+                }
+                errors.add(rejection.getMessage());
+                continue;
+            }
+            available = available.subtract(transfer.amount());
+            errors.add(null);
+            credits.add(new LedgerCommand.Credit(payout.payoutId() + ":" + i, transfer.toAccountId(),
+                    transfer.amount()));
+        }
+        update(account.withBalance(available));
+        credits.forEach(credit -> pendingCredits.put(credit.creditId(), credit));
+        return new PayoutResult(available, errors, credits);
+    }
+
+    private LedgerAccount credit(long accountId, BigDecimal amount) {
+        LedgerAccount account = get(accountId);
+        return update(account.withBalance(account.balance().add(amount)));
+    }
+
+    private LedgerAccount get(long accountId) {
+        LedgerAccount account = accounts.get(accountId);
+        if (account == null) {
+            throw new AccountNotFoundException(accountId);
+        }
+        return account;
+    }
+
+    private LedgerAccount update(LedgerAccount account) {
+        accounts.put(account.id(), account);
+        return account;
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.kamko.bankdemo.ledger;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * State of the whole ledger at a point where every shard was paused: an {@link LedgerCommand.Open} per account
+ * carrying its balance and the {@link LedgerCommand.Credit}s still pending. It is written to a temporary file
+ * and moved over the previous snapshot, so a crash leaves either the old or the new one.
+ */
+final class LedgerSnapshot {
+
+    private LedgerSnapshot() {
+    }
+
+    static void write(Path file, List<LedgerCommand> commands) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporary, LedgerJournal.encodeLines(commands), StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static List<LedgerCommand> read(Path file) throws IOException {
+        List<LedgerCommand> commands = new ArrayList<>();
+        if (Files.notExists(file)) {
+            return commands;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            LedgerCommand command = LedgerJournal.decode(line);
+            if (command == null) {
+                throw new IOException("ledger snapshot " + file + " is corrupted");
+            }
+            commands.add(command);
+        }
+        return commands;
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.kamko.bankdemo.ledger;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * @param balance what is left on the source account
+ * @param errors  rejection message per requested transfer, {@code null} for the accepted ones
+ * @param credits the accepted transfers, to be applied on the recipients' shards
+ */
+public record PayoutResult(BigDecimal balance, List<String> errors, List<LedgerCommand.Credit> credits) {
+}
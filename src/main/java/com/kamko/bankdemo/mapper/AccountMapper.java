@@ -2,7 +2,6 @@ package com.kamko.bankdemo.mapper;
 
 import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
 import com.kamko.bankdemo.dto.account.NewAccountDto;
-import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
 import com.kamko.bankdemo.dto.account_operation.DepositRequest;
 import com.kamko.bankdemo.dto.account_operation.TransferRequest;
 import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
@@ -21,8 +20,6 @@ public interface AccountMapper {
 
     AccountIdNameBalanceDto toIdNameBalance(Account account);
 
-    AccountNameBalanceDto toNameBalance(Account account);
-
     DepositRequest toDeposit(TransferRequest transferRequest);
 
     WithdrawRequest toWithdraw(TransferRequest transferRequest);
@@ -0,0 +1,70 @@
+package com.kamko.bankdemo.metrics;
+
+import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.kamko.bankdemo.exception.NotEnoughFundsException;
+import com.kamko.bankdemo.exception.WrongPinException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every {@code AccountService} and {@code TransactionLogService} call, whichever engine implements it,
+ * tagged with the implementing class, the method and how it ended. It runs outside the transaction advice, so a
+ * timing covers the commit, which is what the caller waited for.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+    public static final String TIMER = "service.operation";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.kamko.bankdemo.service.AccountService+.*(..))"
+            + " || execution(public * com.kamko.bankdemo.service.TransactionLogService+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "ok";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(TIMER)
+                    .tag("class", joinPoint.getTarget().getClass().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * @return the {@code outcome} tag for a failed service call, shared with the flight recorder events
+     */
+    public static String outcome(Throwable e) {
+        if (e instanceof AccountNotFoundException) {
+            return "not_found";
+        }
+        if (e instanceof NotEnoughFundsException) {
+            return "insufficient_funds";
+        }
+        if (e instanceof WrongPinException) {
+            return "wrong_pin";
+        }
+        if (e instanceof OptimisticLockingFailureException) {
+            return "conflict";
+        }
+        return "error";
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.kamko.bankdemo.repo;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Plain JDBC operations over many accounts at once, mixed into {@link AccountRepo}.
+ */
+public interface AccountBatchRepo {
+
+    /**
+     * Locks the accounts for the rest of the transaction, always in ascending id order.
+     *
+     * @return balances of the accounts that exist, ids that weren't found are missing from the map
+     */
+    Map<Long, BigDecimal> lockBalances(Collection<Long> ids);
+
+    /**
+     * @return those of the ids that have an account
+     */
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Adds the amounts to the balances in JDBC batches, in ascending id order.
+     *
+     * @return number of accounts that were updated
+     */
+    int increaseBalances(SortedMap<Long, BigDecimal> amounts);
+
+    /**
+     * Overwrites the balances that differ from the given ones, in JDBC batches and ascending id order.
+     *
+     * @return number of accounts that were updated
+     */
+    int updateBalances(SortedMap<Long, BigDecimal> balances);
+
+}
@@ -0,0 +1,87 @@
+package com.kamko.bankdemo.repo;
+
+import com.kamko.bankdemo.cache.SecondLevelCacheInvalidator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+@RequiredArgsConstructor
+public class AccountBatchRepoImpl implements AccountBatchRepo {
+
+    private static final int CHUNK_SIZE = 1_000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SecondLevelCacheInvalidator cacheInvalidator;
+
+    @Override
+    public Map<Long, BigDecimal> lockBalances(Collection<Long> ids) {
+        List<Long> sortedIds = ids.stream().distinct().sorted().toList();
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (int from = 0; from < sortedIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = sortedIds.subList(from, Math.min(from + CHUNK_SIZE, sortedIds.size()));
+            jdbcTemplate.query("""
+                            SELECT id, balance
+                            FROM account
+                            WHERE id IN (:ids)
+                            ORDER BY id
+                            FOR UPDATE
+                            """, Map.of("ids", chunk),
+                    (RowCallbackHandler) rs -> balances.put(rs.getLong("id"), rs.getBigDecimal("balance")));
+        }
+        return balances;
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        List<Long> sortedIds = ids.stream().distinct().sorted().toList();
+        Set<Long> existing = new HashSet<>();
+        for (int from = 0; from < sortedIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = sortedIds.subList(from, Math.min(from + CHUNK_SIZE, sortedIds.size()));
+            existing.addAll(jdbcTemplate.queryForList("SELECT id FROM account WHERE id IN (:ids)",
+                    Map.of("ids", chunk), Long.class));
+        }
+        return existing;
+    }
+
+    @Override
+    public int increaseBalances(SortedMap<Long, BigDecimal> amounts) {
+        return batchUpdate("""
+                UPDATE account
+                SET balance = balance + :amount, version = version + 1
+                WHERE id = :id
+                """, amounts);
+    }
+
+    @Override
+    public int updateBalances(SortedMap<Long, BigDecimal> balances) {
+        return batchUpdate("""
+                UPDATE account
+                SET balance = :amount, version = version + 1
+                WHERE id = :id AND balance <> :amount
+                """, balances);
+    }
+
+    private int batchUpdate(String sql, SortedMap<Long, BigDecimal> amounts) {
+        if (amounts.isEmpty()) {
+            return 0;
+        }
+        cacheInvalidator.evictAccounts(amounts.keySet());
+        SqlParameterSource[] batch = amounts.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource("id", entry.getKey()).addValue("amount", entry.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        return Arrays.stream(jdbcTemplate.batchUpdate(sql, batch)).sum();
+    }
+
+}
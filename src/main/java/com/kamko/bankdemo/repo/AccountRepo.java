@@ -1,7 +1,116 @@
 package com.kamko.bankdemo.repo;
 
+import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
+import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
 import com.kamko.bankdemo.entity.Account;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+public interface AccountRepo extends JpaRepository<Account, Long>, AccountBatchRepo {
+
+    /**
+     * Looks the account up by primary key instead of counting rows, so the check is answered from the
+     * second-level cache whenever the account is in it.
+     */
+    @Override
+    default boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    // the account pages select straight into the DTOs, so neither the PIN hash nor the transactions proxy of
+    // an Account is loaded and nothing ends up in the persistence context
+    @Query(value = """
+            select new com.kamko.bankdemo.dto.account.AccountNameBalanceDto(a.name, a.balance)
+            from Account a
+            """, countQuery = """
+            select count(a)
+            from Account a
+            """)
+    Page<AccountNameBalanceDto> findPageOfNameBalance(Pageable pageable);
+
+    @Query("""
+            select new com.kamko.bankdemo.dto.account.AccountNameBalanceDto(a.name, a.balance)
+            from Account a
+            """)
+    Slice<AccountNameBalanceDto> findSliceOfNameBalance(Pageable pageable);
+
+    @Query(value = """
+            select new com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto(a.id, a.name, a.balance)
+            from Account a
+            """, countQuery = """
+            select count(a)
+            from Account a
+            """)
+    Page<AccountIdNameBalanceDto> findPageOfIdNameBalance(Pageable pageable);
+
+    @Query("""
+            select new com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto(a.id, a.name, a.balance)
+            from Account a
+            """)
+    Slice<AccountIdNameBalanceDto> findSliceOfIdNameBalance(Pageable pageable);
+
+    @Query("""
+            select a.pin
+            from Account a
+            where a.id = :id
+            """)
+    Optional<String> findPinById(@Param(value = "id") Long id);
+
+    @Query("""
+            select a.balance
+            from Account a
+            where a.id = :id
+            """)
+    Optional<BigDecimal> findBalanceById(@Param(value = "id") Long id);
+
+    @Query("""
+            select new com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto(a.id, a.name, a.balance)
+            from Account a
+            where a.id = :id
+            """)
+    Optional<AccountIdNameBalanceDto> findIdNameBalanceById(@Param(value = "id") Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Account a
+            set a.balance = a.balance + :amount, a.version = a.version + 1
+            where a.id = :id
+            """)
+    int increaseBalance(@Param(value = "id") Long id, @Param(value = "amount") BigDecimal amount);
+
+    /**
+     * Debits the account only if it holds enough funds.
+     *
+     * @return 0 if the account doesn't exist or its balance is lower than the amount
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Account a
+            set a.balance = a.balance - :amount, a.version = a.version + 1
+            where a.id = :id and a.balance >= :amount
+            """)
+    int reduceBalance(@Param(value = "id") Long id, @Param(value = "amount") BigDecimal amount);
+
+    /**
+     * Replaces the PIN hash only if it's still the one that was verified, a concurrent re-hash wins otherwise.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Account a
+            set a.pin = :newPin, a.version = a.version + 1
+            where a.id = :id and a.pin = :oldPin
+            """)
+    int updatePin(@Param(value = "id") Long id, @Param(value = "oldPin") String oldPin,
+                  @Param(value = "newPin") String newPin);
 
-public interface AccountRepo extends JpaRepository<Account, Long> {
 }
@@ -0,0 +1,93 @@
+package com.kamko.bankdemo.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access to {@code idempotency_key}. A key is claimed with an insert before the request runs, so of
+ * two concurrent requests with the same key only one gets past the primary key. A claim left behind by a
+ * request that never finished can be taken over once its lease is over.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepo {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param response serialized response, {@code null} while the request that claimed the key is running
+     */
+    public record StoredRequest(String fingerprint, String response) {
+
+        public boolean isCompleted() {
+            return response != null;
+        }
+    }
+
+    /**
+     * @param claimId identifies this attempt, only its owner may complete or release the claim
+     * @return {@code false} when the key is already taken
+     */
+    public boolean claim(String key, String fingerprint, String claimId, LocalDateTime claimedAt) {
+        try {
+            jdbcTemplate.update("""
+                    INSERT INTO idempotency_key (idempotency_key, fingerprint, claim_id, claimed_at, created_at)
+                    VALUES (?, ?, ?, ?, ?)
+                    """, key, fingerprint, claimId, Timestamp.valueOf(claimedAt), Timestamp.valueOf(claimedAt));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hands a claim that has had no response since {@code staleBefore} over to {@code claimId}.
+     *
+     * @return {@code false} when the claim is still fresh, completed or already taken over by another retry
+     */
+    public boolean takeOver(String key, String claimId, LocalDateTime claimedAt, LocalDateTime staleBefore) {
+        return jdbcTemplate.update("""
+                UPDATE idempotency_key SET claim_id = ?, claimed_at = ?
+                WHERE idempotency_key = ? AND response IS NULL AND claimed_at < ?
+                """, claimId, Timestamp.valueOf(claimedAt), key, Timestamp.valueOf(staleBefore)) == 1;
+    }
+
+    /**
+     * Stores the response. Meant to run in the transaction of the request itself, so the response is there
+     * exactly when the request's effects are.
+     *
+     * @return {@code false} when the claim was taken over by a retry in the meantime
+     */
+    public boolean complete(String key, String claimId, String response) {
+        return jdbcTemplate.update("""
+                UPDATE idempotency_key SET response = ?
+                WHERE idempotency_key = ? AND claim_id = ? AND response IS NULL
+                """, response, key, claimId) == 1;
+    }
+
+    /**
+     * Frees a key whose request failed, so the client can retry it.
+     */
+    public void release(String key, String claimId) {
+        jdbcTemplate.update("DELETE FROM idempotency_key WHERE idempotency_key = ? AND claim_id = ? AND response IS NULL",
+                key, claimId);
+    }
+
+    public Optional<StoredRequest> find(String key) {
+        return jdbcTemplate.query("SELECT fingerprint, response FROM idempotency_key WHERE idempotency_key = ?",
+                        (rs, rowNum) -> new StoredRequest(rs.getString("fingerprint"), rs.getString("response")), key)
+                .stream()
+                .findFirst();
+    }
+
+    public int deleteCreatedBefore(LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM idempotency_key WHERE created_at < ?", Timestamp.valueOf(before));
+    }
+
+}
@@ -1,19 +1,96 @@
 package com.kamko.bankdemo.repo;
 
+import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
 import com.kamko.bankdemo.entity.TransactionLog;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface TransactionLogRepo extends JpaRepository<TransactionLog, Long> {
 
+    /**
+     * Query cache region of the history queries, Hibernate drops its results whenever {@code transaction_log}
+     * is written through the session; writes that bypass it evict the region themselves.
+     */
+    String HISTORY_CACHE_REGION = "transaction-history";
+
+    // the account id is constant in every history query, it leads the order only so that
+    // idx_transaction_log_account_date_time matches it and rows are read already sorted.
+    // Offset pages select straight into TransactionLogDto, the scroll queries load entities for the cursor id
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = HISTORY_CACHE_REGION)
+    })
+    @Query(value = """
+            select new com.kamko.bankdemo.dto.transaction.TransactionLogDto(t.operation, t.amount, t.dateTime)
+            from TransactionLog t
+            where t.account.id = :accountId
+            order by t.account.id, t.dateTime desc, t.id desc
+            """, countQuery = """
+            select count(t)
+            from TransactionLog t
+            where t.account.id = :accountId
+            """)
+    Page<TransactionLogDto> findPageOfTransaction(Pageable pageable, @Param(value = "accountId") Long accountId);
+
+    /**
+     * Same rows as {@link #findPageOfTransaction}, but fetched with one extra row instead of a count query.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = HISTORY_CACHE_REGION)
+    })
+    @Query("""
+            select new com.kamko.bankdemo.dto.transaction.TransactionLogDto(t.operation, t.amount, t.dateTime)
+            from TransactionLog t
+            where t.account.id = :accountId
+            order by t.account.id, t.dateTime desc, t.id desc
+            """)
+    Slice<TransactionLogDto> findSliceOfTransaction(Pageable pageable, @Param(value = "accountId") Long accountId);
+
+    @Query("""
+            select count(t)
+            from TransactionLog t
+            where t.account.id = :accountId
+            """)
+    long countByAccountId(@Param(value = "accountId") Long accountId);
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = HISTORY_CACHE_REGION)
+    })
+    @Query("""
+            select t
+            from TransactionLog t
+            where t.account.id = :accountId
+            order by t.account.id, t.dateTime desc, t.id desc
+            """)
+    List<TransactionLog> findFirstTransactions(@Param(value = "accountId") Long accountId, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = HISTORY_CACHE_REGION)
+    })
     @Query("""
             select t
             from TransactionLog t
             where t.account.id = :accountId
+              and t.dateTime <= :dateTime
+              and (t.dateTime < :dateTime or t.id < :id)
+            order by t.account.id, t.dateTime desc, t.id desc
             """)
-    Page<TransactionLog> findPageOfTransaction(Pageable pageable, @Param(value = "accountId") Long accountId);
+    List<TransactionLog> findTransactionsAfter(@Param(value = "accountId") Long accountId,
+                                               @Param(value = "dateTime") LocalDateTime dateTime,
+                                               @Param(value = "id") Long id,
+                                               Pageable pageable);
 
 }
@@ -0,0 +1,82 @@
+package com.kamko.bankdemo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kamko.bankdemo.config.PinSecurityProperties;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * Remembers successful PIN verifications for a bounded time, so a correct PIN is checked by the
+ * password encoder only once per TTL window.
+ * <p>
+ * Raw PINs are never stored: an entry holds an HMAC of the raw PIN and the stored PIN hash, keyed with a
+ * secret generated at startup. Binding the entry to the stored hash means that changing (or re-hashing) a PIN
+ * invalidates the cached verification for that account.
+ */
+@Component
+public class PinVerificationCache {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final Cache<Long, byte[]> verifiedPins;
+    private final ThreadLocal<Mac> mac;
+
+    public PinVerificationCache(PinSecurityProperties properties) {
+        PinSecurityProperties.Cache cache = properties.cache();
+        this.verifiedPins = cache.enabled()
+                ? Caffeine.newBuilder()
+                .maximumSize(cache.maxSize())
+                .expireAfterWrite(cache.ttl())
+                .build()
+                : null;
+        SecretKey key = generateKey();
+        this.mac = ThreadLocal.withInitial(() -> initMac(key));
+    }
+
+    public boolean isVerified(Long accountId, String rawPin, String encodedPin) {
+        if (verifiedPins == null) {
+            return false;
+        }
+        byte[] verified = verifiedPins.getIfPresent(accountId);
+        return verified != null && MessageDigest.isEqual(verified, digest(rawPin, encodedPin));
+    }
+
+    public void markVerified(Long accountId, String rawPin, String encodedPin) {
+        if (verifiedPins != null) {
+            verifiedPins.put(accountId, digest(rawPin, encodedPin));
+        }
+    }
+
+    private byte[] digest(String rawPin, String encodedPin) {
+        Mac hmac = mac.get();
+        hmac.update(rawPin.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        return hmac.doFinal(encodedPin.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SecretKey generateKey() {
+        try {
+            return KeyGenerator.getInstance(ALGORITHM).generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("unable to generate the PIN cache key", e);
+        }
+    }
+
+    private static Mac initMac(SecretKey key) {
+        try {
+            Mac hmac = Mac.getInstance(ALGORITHM);
+            hmac.init(key);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("unable to initialise the PIN cache HMAC", e);
+        }
+    }
+
+}
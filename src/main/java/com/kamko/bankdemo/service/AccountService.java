@@ -3,15 +3,24 @@ package com.kamko.bankdemo.service;
 import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
 import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
 import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferRequest;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferResponse;
 import com.kamko.bankdemo.dto.account_operation.DepositRequest;
 import com.kamko.bankdemo.dto.account_operation.TransferRequest;
 import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 public interface AccountService {
 
     Page<AccountNameBalanceDto> findAll(Integer pageNum, Integer pageSize);
 
+    Slice<AccountNameBalanceDto> findSlice(Integer pageNum, Integer pageSize);
+
+    long count();
+
+    AccountIdNameBalanceDto findById(Long accountId);
+
     AccountIdNameBalanceDto create(NewAccountDto newAccountDto);
 
     AccountIdNameBalanceDto deposit(DepositRequest depositRequest);
@@ -20,4 +29,14 @@ public interface AccountService {
 
     void transfer(TransferRequest transferRequest);
 
+    BatchTransferResponse transferBatch(BatchTransferRequest batchTransferRequest);
+
+    /**
+     * @return {@code true} when money operations join the caller's transaction on the primary data source, so
+     * whatever the caller writes next to them commits or rolls back together with the operation
+     */
+    default boolean joinsCallerTransaction() {
+        return true;
+    }
+
 }
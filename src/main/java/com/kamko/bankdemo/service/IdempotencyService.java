@@ -0,0 +1,16 @@
+package com.kamko.bankdemo.service;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    /**
+     * Runs {@code action} once per {@code key}. A repeated request with the same key and payload gets the stored
+     * response back without running the action again. Without a key the action simply runs.
+     *
+     * @param operation name of the endpoint, the same key may not be reused for another one
+     * @param request   request body, its {@code pin} is left out of the comparison and never stored
+     */
+    <T> T execute(String key, String operation, Object request, Class<T> responseType, Supplier<T> action);
+
+}
@@ -1,8 +1,14 @@
 package com.kamko.bankdemo.service;
 
+import java.util.Optional;
+
 public interface SecurityService {
 
-    void verifyPin(String rawPin, String encodedPin, Long accountId);
+    /**
+     * @return a new hash of the PIN when the stored one was produced by an outdated encoder or strength,
+     * the caller is expected to persist it in place of {@code encodedPin}
+     */
+    Optional<String> verifyPin(String rawPin, String encodedPin, Long accountId);
 
     String encode(String rawPin);
 
@@ -0,0 +1,14 @@
+package com.kamko.bankdemo.service;
+
+import com.kamko.bankdemo.dto.transaction.ExportFormat;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public interface TransactionLogExportService {
+
+    /**
+     * Checks that the account exists and returns a body that streams its whole history, newest first, when the
+     * response is written.
+     */
+    StreamingResponseBody exportAccountTransactions(Long accountId, ExportFormat format);
+
+}
@@ -1,10 +1,14 @@
 package com.kamko.bankdemo.service;
 
+import com.kamko.bankdemo.dto.CursorPageResponse;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferItem;
 import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
 import com.kamko.bankdemo.entity.Account;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 public interface TransactionLogService {
 
@@ -12,6 +16,16 @@ public interface TransactionLogService {
 
     void logWithdraw(Account account, BigDecimal amount);
 
+    void logTransfer(Account from, Account to, BigDecimal amount);
+
+    void logBatchTransfer(Account from, List<BatchTransferItem> transfers);
+
     Page<TransactionLogDto> findAccountTransactions(Long accountId, Integer pageNum, Integer pageSize);
 
+    Slice<TransactionLogDto> findAccountTransactionSlice(Long accountId, Integer pageNum, Integer pageSize);
+
+    long countAccountTransactions(Long accountId);
+
+    CursorPageResponse<TransactionLogDto> scrollAccountTransactions(Long accountId, String cursor, Integer pageSize);
+
 }
@@ -1,12 +1,16 @@
 package com.kamko.bankdemo.service.impl;
 
+import com.kamko.bankdemo.cache.AccountBalanceCache;
 import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
 import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
 import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferItem;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferMode;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferRequest;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferResponse;
 import com.kamko.bankdemo.dto.account_operation.DepositRequest;
 import com.kamko.bankdemo.dto.account_operation.TransferRequest;
 import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
-import com.kamko.bankdemo.entity.Account;
 import com.kamko.bankdemo.exception.AccountNotFoundException;
 import com.kamko.bankdemo.exception.EntityConvertingException;
 import com.kamko.bankdemo.exception.IdMatchingException;
@@ -19,12 +23,20 @@ import com.kamko.bankdemo.service.TransactionLogService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import static java.math.RoundingMode.HALF_UP;
 @Service
@@ -36,12 +48,28 @@ public class AccountServiceImpl implements AccountService {
     private final AccountMapper accountMapper;
     private final SecurityService securityService;
     private final TransactionLogService transactionService;
+    private final AccountBalanceCache balanceCache;
     private static final int ROUNDING_SCALE = 2;
 
     @Override
     public Page<AccountNameBalanceDto> findAll(Integer pageNum, Integer pageSize) {
-        return accountRepo.findAll(PageRequest.of(pageNum, pageSize))
-                .map(accountMapper::toNameBalance);
+        return accountRepo.findPageOfNameBalance(PageRequest.of(pageNum, pageSize));
+    }
+
+    @Override
+    public Slice<AccountNameBalanceDto> findSlice(Integer pageNum, Integer pageSize) {
+        return accountRepo.findSliceOfNameBalance(PageRequest.of(pageNum, pageSize));
+    }
+
+    @Override
+    public long count() {
+        return accountRepo.count();
+    }
+
+    @Override
+    public AccountIdNameBalanceDto findById(Long accountId) {
+        return balanceCache.get(accountId, accountRepo::findIdNameBalanceById)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
     }
 
     @Override
@@ -61,31 +89,21 @@ public class AccountServiceImpl implements AccountService {
     @Transactional
     public AccountIdNameBalanceDto deposit(DepositRequest depositRequest) {
         Long accountId = depositRequest.toAccountId();
-        BigDecimal amount = depositRequest.amount();
-        return accountRepo.findById(accountId)
-                .map(account -> {
-                    account.setBalance(increaseBalance(account, amount));
-                    accountRepo.saveAndFlush(account);
-                    transactionService.logDeposit(account, amount);
-                    return accountMapper.toIdNameBalance(account);
-                })
-                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        BigDecimal amount = scale(depositRequest.amount());
+        credit(accountId, amount);
+        transactionService.logDeposit(accountRepo.getReferenceById(accountId), amount);
+        return evicted(findIdNameBalance(accountId));
     }
 
     @Override
     @Transactional
     public AccountIdNameBalanceDto withdraw(WithdrawRequest withdrawRequest) {
         Long accountId = withdrawRequest.fromAccountId();
-        BigDecimal amount = withdrawRequest.amount();
-        return accountRepo.findById(accountId)
-                .map(account -> {
-                    securityService.verifyPin(withdrawRequest.pin(), account.getPin(), accountId);
-                    account.setBalance(reduceBalance(account, amount));
-                    accountRepo.saveAndFlush(account);
-                    transactionService.logWithdraw(account, amount);
-                    return accountMapper.toIdNameBalance(account);
-                })
-                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        BigDecimal amount = scale(withdrawRequest.amount());
+        verifyPin(accountId, withdrawRequest.pin());
+        debit(accountId, amount);
+        transactionService.logWithdraw(accountRepo.getReferenceById(accountId), amount);
+        return evicted(findIdNameBalance(accountId));
     }
 
     @Override
@@ -96,23 +114,121 @@ public class AccountServiceImpl implements AccountService {
         if (Objects.equals(fromAccountId, toAccountId)) {
             throw new IdMatchingException(fromAccountId);
         }
-        withdraw(accountMapper.toWithdraw(transferRequest));
-        deposit(accountMapper.toDeposit(transferRequest));
+        BigDecimal amount = scale(transferRequest.amount());
+        verifyPin(fromAccountId, transferRequest.pin());
+
+        // each update locks its row, applying them in ascending id order keeps opposing transfers deadlock-free
+        if (fromAccountId < toAccountId) {
+            debit(fromAccountId, amount);
+            credit(toAccountId, amount);
+        } else {
+            credit(toAccountId, amount);
+            debit(fromAccountId, amount);
+        }
+        transactionService.logTransfer(accountRepo.getReferenceById(fromAccountId),
+                accountRepo.getReferenceById(toAccountId), amount);
+        balanceCache.evict(List.of(fromAccountId, toAccountId));
+    }
+
+    /**
+     * Pays out from one account to many in a single transaction: the PIN is verified once, the source and every
+     * recipient are locked in ascending id order, the source is debited once with the total and the credits go
+     * out as one JDBC batch. Items are checked in request order against what is left on the source.
+     */
+    @Override
+    @Transactional
+    public BatchTransferResponse transferBatch(BatchTransferRequest batchTransferRequest) {
+        Long fromAccountId = batchTransferRequest.fromAccountId();
+        BatchTransferMode mode = Objects.requireNonNullElse(batchTransferRequest.mode(), BatchTransferMode.ALL_OR_NOTHING);
+        verifyPin(fromAccountId, batchTransferRequest.pin());
+
+        Set<Long> accountIds = new HashSet<>();
+        accountIds.add(fromAccountId);
+        batchTransferRequest.transfers().forEach(transfer -> accountIds.add(transfer.toAccountId()));
+        Map<Long, BigDecimal> balances = accountRepo.lockBalances(accountIds);
+        BigDecimal available = Optional.ofNullable(balances.get(fromAccountId))
+                .orElseThrow(() -> new AccountNotFoundException(fromAccountId));
+
+        List<BatchTransferItem> accepted = new ArrayList<>();
+        List<BatchTransferResponse.ItemResult> results = new ArrayList<>();
+        SortedMap<Long, BigDecimal> credits = new TreeMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (BatchTransferItem transfer : batchTransferRequest.transfers()) {
+            Long toAccountId = transfer.toAccountId();
+            BigDecimal amount = scale(transfer.amount());
+            RuntimeException rejection = rejectTransfer(fromAccountId, toAccountId, amount, available, balances);
+            if (rejection != null) {
+                if (mode == BatchTransferMode.ALL_OR_NOTHING) {
+                    throw rejection;
+                }
+                results.add(new BatchTransferResponse.ItemResult(toAccountId, amount,
+                        BatchTransferResponse.Status.FAILED, rejection.getMessage()));
+                continue;
+            }
+            available = available.subtract(amount);
+            total = total.add(amount);
+            credits.merge(toAccountId, amount, BigDecimal::add);
+            accepted.add(new BatchTransferItem(toAccountId, amount));
+            results.add(new BatchTransferResponse.ItemResult(toAccountId, amount,
+                    BatchTransferResponse.Status.COMPLETED, null));
+        }
+
+        if (!accepted.isEmpty()) {
+            debit(fromAccountId, total);
+            accountRepo.increaseBalances(credits);
+            transactionService.logBatchTransfer(accountRepo.getReferenceById(fromAccountId), accepted);
+            balanceCache.evict(accountIds);
+        }
+        return new BatchTransferResponse(fromAccountId, available, results);
+    }
+
+    private RuntimeException rejectTransfer(Long fromAccountId, Long toAccountId, BigDecimal amount,
+                                            BigDecimal available, Map<Long, BigDecimal> balances) {
+        if (Objects.equals(fromAccountId, toAccountId)) {
+            return new IdMatchingException(fromAccountId);
+        }
+        if (!balances.containsKey(toAccountId)) {
+            return new AccountNotFoundException(toAccountId);
+        }
+        if (available.compareTo(amount) < 0) {
+            return new NotEnoughFundsException(fromAccountId, available, amount);
+        }
+        return null;
     }
 
-    private BigDecimal increaseBalance(Account account, BigDecimal amount) {
-        return account.getBalance()
-                .add(amount)
-                .setScale(ROUNDING_SCALE, HALF_UP);
+    private void verifyPin(Long accountId, String rawPin) {
+        String encodedPin = accountRepo.findPinById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        securityService.verifyPin(rawPin, encodedPin, accountId)
+                .ifPresent(upgradedPin -> accountRepo.updatePin(accountId, encodedPin, upgradedPin));
+    }
+
+    private void credit(Long accountId, BigDecimal amount) {
+        if (accountRepo.increaseBalance(accountId, amount) == 0) {
+            throw new AccountNotFoundException(accountId);
+        }
     }
 
-    private BigDecimal reduceBalance(Account account, BigDecimal amount) {
-        BigDecimal currentBalance = account.getBalance();
-        if (currentBalance.compareTo(amount) < 0) {
-            throw new NotEnoughFundsException(account, amount);
+    private void debit(Long accountId, BigDecimal amount) {
+        if (accountRepo.reduceBalance(accountId, amount) == 0) {
+            BigDecimal balance = accountRepo.findBalanceById(accountId)
+                    .orElseThrow(() -> new AccountNotFoundException(accountId));
+            throw new NotEnoughFundsException(accountId, balance, amount);
         }
-        return currentBalance.subtract(amount)
-                .setScale(ROUNDING_SCALE, HALF_UP);
+    }
+
+    private AccountIdNameBalanceDto findIdNameBalance(Long accountId) {
+        return accountRepo.findIdNameBalanceById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+    }
+
+    private AccountIdNameBalanceDto evicted(AccountIdNameBalanceDto account) {
+        balanceCache.evict(List.of(account.id()));
+        return account;
+    }
+
+    private BigDecimal scale(BigDecimal amount) {
+        return amount.setScale(ROUNDING_SCALE, HALF_UP);
     }
 
 }
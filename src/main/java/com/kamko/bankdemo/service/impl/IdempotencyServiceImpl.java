@@ -0,0 +1,179 @@
+package com.kamko.bankdemo.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kamko.bankdemo.config.IdempotencyProperties;
+import com.kamko.bankdemo.exception.IdempotencyKeyMismatchException;
+import com.kamko.bankdemo.exception.IdempotentRequestInProgressException;
+import com.kamko.bankdemo.exception.InvalidIdempotencyKeyException;
+import com.kamko.bankdemo.repo.IdempotencyKeyRepo;
+import com.kamko.bankdemo.repo.IdempotencyKeyRepo.StoredRequest;
+import com.kamko.bankdemo.service.AccountService;
+import com.kamko.bankdemo.service.IdempotencyService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Completed requests are answered from a bounded in-memory cache first and from {@code idempotency_key} after
+ * an eviction or a restart. The fingerprint is a SHA-256 of the operation and the request without its PIN, so
+ * a replay costs no password encoder call and no account query.
+ * <p>
+ * The response is stored in the same transaction as the request, so a request that died after its claim left
+ * nothing behind, and a retry may take the claim over once {@code lease} has passed. Engines whose operations
+ * commit outside that transaction keep such claims until the TTL instead of risking a second execution.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String PIN = "pin";
+
+    private final IdempotencyKeyRepo idempotencyKeyRepo;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyProperties properties;
+    private final Cache<String, StoredRequest> completedRequests;
+    private final Counter cacheReplays;
+    private final Counter storeReplays;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean takeOverStaleClaims;
+
+    public IdempotencyServiceImpl(IdempotencyKeyRepo idempotencyKeyRepo, ObjectMapper objectMapper,
+                                  IdempotencyProperties properties, MeterRegistry meterRegistry,
+                                  PlatformTransactionManager transactionManager, AccountService accountService) {
+        this.idempotencyKeyRepo = idempotencyKeyRepo;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // a claim without a response only proves the request had no effect when both commit together
+        this.takeOverStaleClaims = accountService.joinsCallerTransaction();
+        this.completedRequests = Caffeine.newBuilder()
+                .maximumSize(properties.cacheSize())
+                .expireAfterWrite(properties.ttl())
+                .build();
+        this.cacheReplays = replayCounter(meterRegistry, "cache");
+        this.storeReplays = replayCounter(meterRegistry, "table");
+    }
+
+    @Override
+    public <T> T execute(String key, String operation, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(key);
+        }
+        String fingerprint = fingerprint(operation, request);
+        StoredRequest cached = completedRequests.getIfPresent(key);
+        if (cached != null) {
+            cacheReplays.increment();
+            return replay(key, fingerprint, cached, responseType);
+        }
+        String claimId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        if (!idempotencyKeyRepo.claim(key, fingerprint, claimId, now)) {
+            // the claim may have been released by a failed request in the meantime, the client just retries
+            StoredRequest stored = idempotencyKeyRepo.find(key)
+                    .orElseThrow(() -> new IdempotentRequestInProgressException(key));
+            if (stored.isCompleted()) {
+                completedRequests.put(key, stored);
+                storeReplays.increment();
+                return replay(key, fingerprint, stored, responseType);
+            }
+            if (!stored.fingerprint().equals(fingerprint)) {
+                throw new IdempotencyKeyMismatchException(key);
+            }
+            if (!takeOverStaleClaims
+                    || !idempotencyKeyRepo.takeOver(key, claimId, now, now.minus(properties.lease()))) {
+                throw new IdempotentRequestInProgressException(key);
+            }
+            log.warn("took over the stale claim of Idempotency-Key {}, its request never completed", key);
+        }
+
+        Completed<T> completed;
+        try {
+            completed = transactionTemplate.execute(status -> {
+                T response = action.get();
+                StoredRequest stored = new StoredRequest(fingerprint, write(response));
+                if (!idempotencyKeyRepo.complete(key, claimId, stored.response())) {
+                    throw new IdempotentRequestInProgressException(key);
+                }
+                return new Completed<>(response, stored);
+            });
+        } catch (RuntimeException e) {
+            idempotencyKeyRepo.release(key, claimId);
+            throw e;
+        }
+        completedRequests.put(key, completed.stored());
+        return completed.response();
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval}")
+    public void deleteExpiredKeys() {
+        int deleted = idempotencyKeyRepo.deleteCreatedBefore(LocalDateTime.now().minus(properties.ttl()));
+        if (deleted > 0) {
+            log.info("deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private <T> T replay(String key, String fingerprint, StoredRequest stored, Class<T> responseType) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyMismatchException(key);
+        }
+        if (!stored.isCompleted()) {
+            throw new IdempotentRequestInProgressException(key);
+        }
+        try {
+            return objectMapper.readValue(stored.response(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("unable to read the stored response for Idempotency-Key " + key, e);
+        }
+    }
+
+    private String fingerprint(String operation, Object request) {
+        ObjectNode body = objectMapper.valueToTree(request);
+        body.remove(PIN);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(body)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("unable to fingerprint the " + operation + " request", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("unable to store the response of an idempotent request", e);
+        }
+    }
+
+    private static Counter replayCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("idempotency.replays")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private record Completed<T>(T response, StoredRequest stored) {
+    }
+
+}
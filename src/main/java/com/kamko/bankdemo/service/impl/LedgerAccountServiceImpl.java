@@ -0,0 +1,229 @@
+package com.kamko.bankdemo.service.impl;
+
+import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
+import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
+import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferItem;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferMode;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferRequest;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferResponse;
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.account_operation.TransferRequest;
+import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
+import com.kamko.bankdemo.entity.Account;
+import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.kamko.bankdemo.exception.EntityConvertingException;
+import com.kamko.bankdemo.exception.IdMatchingException;
+import com.kamko.bankdemo.ledger.Ledger;
+import com.kamko.bankdemo.ledger.LedgerAccount;
+import com.kamko.bankdemo.ledger.LedgerCommand;
+import com.kamko.bankdemo.ledger.PayoutResult;
+import com.kamko.bankdemo.mapper.AccountMapper;
+import com.kamko.bankdemo.repo.AccountRepo;
+import com.kamko.bankdemo.service.AccountService;
+import com.kamko.bankdemo.service.SecurityService;
+import com.kamko.bankdemo.service.TransactionLogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static java.math.RoundingMode.HALF_UP;
+
+/**
+ * Keeps balances in the {@link Ledger} instead of the {@code account} table, selected with
+ * {@code app.account.engine=ledger}. Names and PINs stay in the table; an account the ledger doesn't know yet is
+ * opened in it with the balance from the table on first use. Log rows are written once the ledger has applied
+ * the operation, the write-behind log keeps that off the request path as well.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.account", name = "engine", havingValue = "ledger")
+public class LedgerAccountServiceImpl implements AccountService {
+
+    private final Ledger ledger;
+    private final AccountRepo accountRepo;
+    private final AccountMapper accountMapper;
+    private final SecurityService securityService;
+    private final TransactionLogService transactionService;
+    private static final int ROUNDING_SCALE = 2;
+
+    @Override
+    public Page<AccountNameBalanceDto> findAll(Integer pageNum, Integer pageSize) {
+        return accountRepo.findPageOfIdNameBalance(PageRequest.of(pageNum, pageSize))
+                .map(this::toNameBalance);
+    }
+
+    @Override
+    public Slice<AccountNameBalanceDto> findSlice(Integer pageNum, Integer pageSize) {
+        return accountRepo.findSliceOfIdNameBalance(PageRequest.of(pageNum, pageSize))
+                .map(this::toNameBalance);
+    }
+
+    @Override
+    public long count() {
+        return accountRepo.count();
+    }
+
+    @Override
+    public AccountIdNameBalanceDto findById(Long accountId) {
+        return toDto(opened(accountId));
+    }
+
+    @Override
+    public AccountIdNameBalanceDto create(NewAccountDto newAccountDto) {
+        Account account = Optional.of(newAccountDto)
+                .map(accountMapper::toEntity)
+                .map(entity -> {
+                    entity.setPin(securityService.encode(newAccountDto.pin()));
+                    return accountRepo.save(entity);
+                })
+                .orElseThrow(() -> new EntityConvertingException(newAccountDto));
+        return toDto(ledger.create(account.getId(), account.getName(), scale(account.getBalance())));
+    }
+
+    @Override
+    public AccountIdNameBalanceDto deposit(DepositRequest depositRequest) {
+        Long accountId = depositRequest.toAccountId();
+        BigDecimal amount = scale(depositRequest.amount());
+        opened(accountId);
+        LedgerAccount account = ledger.deposit(accountId, amount);
+        transactionService.logDeposit(accountRepo.getReferenceById(accountId), amount);
+        return toDto(account);
+    }
+
+    @Override
+    public AccountIdNameBalanceDto withdraw(WithdrawRequest withdrawRequest) {
+        Long accountId = withdrawRequest.fromAccountId();
+        BigDecimal amount = scale(withdrawRequest.amount());
+        verifyPin(accountId, withdrawRequest.pin());
+        opened(accountId);
+        LedgerAccount account = ledger.withdraw(accountId, amount);
+        transactionService.logWithdraw(accountRepo.getReferenceById(accountId), amount);
+        return toDto(account);
+    }
+
+    @Override
+    public void transfer(TransferRequest transferRequest) {
+        Long fromAccountId = transferRequest.fromAccountId();
+        Long toAccountId = transferRequest.toAccountId();
+        if (Objects.equals(fromAccountId, toAccountId)) {
+            throw new IdMatchingException(fromAccountId);
+        }
+        BigDecimal amount = scale(transferRequest.amount());
+        verifyPin(fromAccountId, transferRequest.pin());
+        opened(fromAccountId);
+        opened(toAccountId);
+        ledger.payout(fromAccountId, List.of(new LedgerCommand.Transfer(toAccountId, amount)), true);
+        transactionService.logTransfer(accountRepo.getReferenceById(fromAccountId),
+                accountRepo.getReferenceById(toAccountId), amount);
+    }
+
+    /**
+     * The ledger journals operations itself, outside the caller's transaction.
+     */
+    @Override
+    public boolean joinsCallerTransaction() {
+        return false;
+    }
+
+    /**
+     * Recipients that don't exist and transfers to the source itself are rejected here, the rest goes to the
+     * ledger as one payout, which checks the funds item by item in request order.
+     */
+    @Override
+    public BatchTransferResponse transferBatch(BatchTransferRequest batchTransferRequest) {
+        Long fromAccountId = batchTransferRequest.fromAccountId();
+        BatchTransferMode mode = Objects.requireNonNullElse(batchTransferRequest.mode(), BatchTransferMode.ALL_OR_NOTHING);
+        verifyPin(fromAccountId, batchTransferRequest.pin());
+        LedgerAccount from = opened(fromAccountId);
+
+        List<BatchTransferItem> items = batchTransferRequest.transfers().stream()
+                .map(transfer -> new BatchTransferItem(transfer.toAccountId(), scale(transfer.amount())))
+                .toList();
+        List<String> rejections = new ArrayList<>(items.size());
+        List<LedgerCommand.Transfer> transfers = new ArrayList<>();
+        for (BatchTransferItem item : items) {
+            RuntimeException rejection = rejectTransfer(fromAccountId, item.toAccountId());
+            if (rejection != null && mode == BatchTransferMode.ALL_OR_NOTHING) {
+                throw rejection;
+            }
+            rejections.add(rejection == null ? null : rejection.getMessage());
+            if (rejection == null) {
+                transfers.add(new LedgerCommand.Transfer(item.toAccountId(), item.amount()));
+            }
+        }
+        PayoutResult payout = transfers.isEmpty()
+                ? new PayoutResult(from.balance(), List.of(), List.of())
+                : ledger.payout(fromAccountId, transfers, mode == BatchTransferMode.ALL_OR_NOTHING);
+
+        List<BatchTransferItem> accepted = new ArrayList<>();
+        List<BatchTransferResponse.ItemResult> results = new ArrayList<>(items.size());
+        int payoutIndex = 0;
+        for (int i = 0; i < items.size(); i++) {
+            BatchTransferItem item = items.get(i);
+            String error = rejections.get(i) != null ? rejections.get(i) : payout.errors().get(payoutIndex++);
+            if (error == null) {
+                accepted.add(item);
+            }
+            results.add(new BatchTransferResponse.ItemResult(item.toAccountId(), item.amount(),
+                    error == null ? BatchTransferResponse.Status.COMPLETED : BatchTransferResponse.Status.FAILED,
+                    error));
+        }
+        if (!accepted.isEmpty()) {
+            transactionService.logBatchTransfer(accountRepo.getReferenceById(fromAccountId), accepted);
+        }
+        return new BatchTransferResponse(fromAccountId, payout.balance(), results);
+    }
+
+    private RuntimeException rejectTransfer(Long fromAccountId, Long toAccountId) {
+        if (Objects.equals(fromAccountId, toAccountId)) {
+            return new IdMatchingException(fromAccountId);
+        }
+        try {
+            opened(toAccountId);
+            return null;
+        } catch (AccountNotFoundException e) {
+            return e;
+        }
+    }
+
+    private LedgerAccount opened(Long accountId) {
+        return ledger.find(accountId)
+                .or(() -> accountRepo.findIdNameBalanceById(accountId)
+                        .map(account -> ledger.open(account.id(), account.name(), scale(account.balance()))))
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+    }
+
+    private void verifyPin(Long accountId, String rawPin) {
+        String encodedPin = accountRepo.findPinById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        securityService.verifyPin(rawPin, encodedPin, accountId)
+                .ifPresent(upgradedPin -> accountRepo.updatePin(accountId, encodedPin, upgradedPin));
+    }
+
+    private AccountNameBalanceDto toNameBalance(AccountIdNameBalanceDto account) {
+        return new AccountNameBalanceDto(account.name(), ledger.find(account.id())
+                .map(LedgerAccount::balance)
+                .orElse(account.balance()));
+    }
+
+    private static AccountIdNameBalanceDto toDto(LedgerAccount account) {
+        return new AccountIdNameBalanceDto(account.id(), account.name(), account.balance());
+    }
+
+    private BigDecimal scale(BigDecimal amount) {
+        return amount.setScale(ROUNDING_SCALE, HALF_UP);
+    }
+
+}
@@ -1,25 +1,68 @@
 package com.kamko.bankdemo.service.impl;
 
 import com.kamko.bankdemo.exception.WrongPinException;
+import com.kamko.bankdemo.jfr.PinEvent;
+import com.kamko.bankdemo.security.PinHashingExecutor;
+import com.kamko.bankdemo.security.PinVerificationCache;
 import com.kamko.bankdemo.service.SecurityService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
+import static com.kamko.bankdemo.security.PinHashingExecutor.ENCODE;
+import static com.kamko.bankdemo.security.PinHashingExecutor.MATCHES;
+
 @Service
 @RequiredArgsConstructor
 public class SecurityServiceImpl implements SecurityService {
 
     private final PasswordEncoder encoder;
+    private final PinVerificationCache pinCache;
+    private final PinHashingExecutor hashingExecutor;
 
     @Override
-    public void verifyPin(String rawPin, String encodedPin, Long accountId) {
-        if (!encoder.matches(rawPin, encodedPin)) throw new WrongPinException(accountId);
+    public Optional<String> verifyPin(String rawPin, String encodedPin, Long accountId) {
+        PinEvent event = PinEvent.start(PinEvent.VERIFY, accountId);
+        try {
+            if (pinCache.isVerified(accountId, rawPin, encodedPin)) {
+                event.markCached();
+                return Optional.empty();
+            }
+            boolean matches = hashingExecutor.execute(MATCHES, () -> encoder.matches(rawPin, encodedPin));
+            if (!matches) throw new WrongPinException(accountId);
+            pinCache.markVerified(accountId, rawPin, encodedPin);
+            if (!encoder.upgradeEncoding(encodedPin)) {
+                return Optional.empty();
+            }
+            String upgradedPin = encode(rawPin, accountId);
+            pinCache.markVerified(accountId, rawPin, upgradedPin);
+            event.markRehashed();
+            return Optional.of(upgradedPin);
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
     }
 
     @Override
     public String encode(String rawPin) {
-        return encoder.encode(rawPin);
+        return encode(rawPin, null);
+    }
+
+    private String encode(String rawPin, Long accountId) {
+        PinEvent event = PinEvent.start(PinEvent.HASH, accountId);
+        try {
+            return hashingExecutor.execute(ENCODE, () -> encoder.encode(rawPin));
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
     }
 
 }
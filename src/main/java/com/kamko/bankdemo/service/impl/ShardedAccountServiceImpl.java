@@ -0,0 +1,250 @@
+package com.kamko.bankdemo.service.impl;
+
+import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
+import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
+import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferItem;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferMode;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferRequest;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferResponse;
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.account_operation.TransferRequest;
+import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
+import com.kamko.bankdemo.entity.Operation;
+import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.kamko.bankdemo.exception.IdMatchingException;
+import com.kamko.bankdemo.exception.NotEnoughFundsException;
+import com.kamko.bankdemo.service.AccountService;
+import com.kamko.bankdemo.service.SecurityService;
+import com.kamko.bankdemo.sharding.AccountShard;
+import com.kamko.bankdemo.sharding.AccountShards;
+import com.kamko.bankdemo.sharding.CrossShardTransferCoordinator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static java.math.RoundingMode.HALF_UP;
+
+/**
+ * Spreads accounts over several databases by id range, selected with {@code app.account.engine=sharded}.
+ * Operations on a single shard run in that shard's local transaction, including transfers between two
+ * accounts of the same shard; anything crossing shards goes through {@link CrossShardTransferCoordinator}.
+ * Log rows are written by the shard that owns the account.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.account", name = "engine", havingValue = "sharded")
+public class ShardedAccountServiceImpl implements AccountService {
+
+    private final AccountShards shards;
+    private final CrossShardTransferCoordinator coordinator;
+    private final SecurityService securityService;
+    private static final int ROUNDING_SCALE = 2;
+
+    /**
+     * Shards own consecutive id ranges, so walking them in order and skipping whole shards by their count
+     * gives the same pages as a single table ordered by id.
+     */
+    @Override
+    public Page<AccountNameBalanceDto> findAll(Integer pageNum, Integer pageSize) {
+        long offset = (long) pageNum * pageSize;
+        long total = 0;
+        List<AccountNameBalanceDto> content = new ArrayList<>(pageSize);
+        for (AccountShard shard : shards.all()) {
+            long count = shard.count();
+            long shardOffset = offset - total;
+            if (content.size() < pageSize && shardOffset < count) {
+                content.addAll(shard.findPage(Math.max(shardOffset, 0), pageSize - content.size()));
+            }
+            total += count;
+        }
+        return new PageImpl<>(content, PageRequest.of(pageNum, pageSize), total);
+    }
+
+    /**
+     * Skipping whole shards needs their counts anyway, so a slice is the page without its total.
+     */
+    @Override
+    public Slice<AccountNameBalanceDto> findSlice(Integer pageNum, Integer pageSize) {
+        return findAll(pageNum, pageSize);
+    }
+
+    @Override
+    public long count() {
+        return shards.all().stream()
+                .mapToLong(AccountShard::count)
+                .sum();
+    }
+
+    @Override
+    public AccountIdNameBalanceDto findById(Long accountId) {
+        return findIdNameBalance(shards.shardOf(accountId), accountId);
+    }
+
+    @Override
+    public AccountIdNameBalanceDto create(NewAccountDto newAccountDto) {
+        AccountShard shard = shards.nextForNewAccount();
+        long accountId = shard.insert(newAccountDto.name(), securityService.encode(newAccountDto.pin()));
+        return findIdNameBalance(shard, accountId);
+    }
+
+    @Override
+    public AccountIdNameBalanceDto deposit(DepositRequest depositRequest) {
+        Long accountId = depositRequest.toAccountId();
+        BigDecimal amount = scale(depositRequest.amount());
+        AccountShard shard = shards.shardOf(accountId);
+        return shard.inTransaction(() -> {
+            credit(shard, accountId, amount);
+            return findIdNameBalance(shard, accountId);
+        });
+    }
+
+    @Override
+    public AccountIdNameBalanceDto withdraw(WithdrawRequest withdrawRequest) {
+        Long accountId = withdrawRequest.fromAccountId();
+        BigDecimal amount = scale(withdrawRequest.amount());
+        AccountShard shard = shards.shardOf(accountId);
+        verifyPin(shard, accountId, withdrawRequest.pin());
+        return shard.inTransaction(() -> {
+            debit(shard, accountId, amount);
+            return findIdNameBalance(shard, accountId);
+        });
+    }
+
+    @Override
+    public void transfer(TransferRequest transferRequest) {
+        Long fromAccountId = transferRequest.fromAccountId();
+        Long toAccountId = transferRequest.toAccountId();
+        if (Objects.equals(fromAccountId, toAccountId)) {
+            throw new IdMatchingException(fromAccountId);
+        }
+        BigDecimal amount = scale(transferRequest.amount());
+        AccountShard fromShard = shards.shardOf(fromAccountId);
+        verifyPin(fromShard, fromAccountId, transferRequest.pin());
+        AccountShard toShard = shards.shardOf(toAccountId);
+        if (fromShard != toShard) {
+            coordinator.transfer(fromAccountId, new TreeMap<>(Map.of(toAccountId, amount)));
+            return;
+        }
+        fromShard.inTransaction(() -> {
+            // each update locks its row, applying them in ascending id order keeps opposing transfers deadlock-free
+            if (fromAccountId < toAccountId) {
+                debit(fromShard, fromAccountId, amount);
+                credit(fromShard, toAccountId, amount);
+            } else {
+                credit(fromShard, toAccountId, amount);
+                debit(fromShard, fromAccountId, amount);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Operations commit on the shard data sources, outside the caller's transaction.
+     */
+    @Override
+    public boolean joinsCallerTransaction() {
+        return false;
+    }
+
+    /**
+     * Items are checked in request order against the source balance read up front, the accepted ones are then
+     * moved by one coordinated transfer. A concurrent debit of the source can still make that transfer fail as
+     * a whole with {@link NotEnoughFundsException}.
+     */
+    @Override
+    public BatchTransferResponse transferBatch(BatchTransferRequest batchTransferRequest) {
+        Long fromAccountId = batchTransferRequest.fromAccountId();
+        BatchTransferMode mode = Objects.requireNonNullElse(batchTransferRequest.mode(), BatchTransferMode.ALL_OR_NOTHING);
+        AccountShard fromShard = shards.shardOf(fromAccountId);
+        verifyPin(fromShard, fromAccountId, batchTransferRequest.pin());
+        BigDecimal available = findIdNameBalance(fromShard, fromAccountId).balance();
+
+        List<BatchTransferResponse.ItemResult> results = new ArrayList<>();
+        SortedMap<Long, BigDecimal> credits = new TreeMap<>();
+        for (BatchTransferItem transfer : batchTransferRequest.transfers()) {
+            Long toAccountId = transfer.toAccountId();
+            BigDecimal amount = scale(transfer.amount());
+            RuntimeException rejection = rejectTransfer(fromAccountId, toAccountId, amount, available);
+            if (rejection != null) {
+                if (mode == BatchTransferMode.ALL_OR_NOTHING) {
+                    throw rejection;
+                }
+                results.add(new BatchTransferResponse.ItemResult(toAccountId, amount,
+                        BatchTransferResponse.Status.FAILED, rejection.getMessage()));
+                continue;
+            }
+            available = available.subtract(amount);
+            credits.merge(toAccountId, amount, BigDecimal::add);
+            results.add(new BatchTransferResponse.ItemResult(toAccountId, amount,
+                    BatchTransferResponse.Status.COMPLETED, null));
+        }
+        if (!credits.isEmpty()) {
+            coordinator.transfer(fromAccountId, credits);
+        }
+        return new BatchTransferResponse(fromAccountId, available, results);
+    }
+
+    private RuntimeException rejectTransfer(Long fromAccountId, Long toAccountId, BigDecimal amount,
+                                            BigDecimal available) {
+        if (Objects.equals(fromAccountId, toAccountId)) {
+            return new IdMatchingException(fromAccountId);
+        }
+        try {
+            findIdNameBalance(shards.shardOf(toAccountId), toAccountId);
+        } catch (AccountNotFoundException e) {
+            return e;
+        }
+        if (available.compareTo(amount) < 0) {
+            return new NotEnoughFundsException(fromAccountId, available, amount);
+        }
+        return null;
+    }
+
+    private void verifyPin(AccountShard shard, Long accountId, String rawPin) {
+        String encodedPin = shard.findPin(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        securityService.verifyPin(rawPin, encodedPin, accountId)
+                .ifPresent(upgradedPin -> shard.updatePin(accountId, encodedPin, upgradedPin));
+    }
+
+    private void credit(AccountShard shard, Long accountId, BigDecimal amount) {
+        if (shard.increaseBalance(accountId, amount) == 0) {
+            throw new AccountNotFoundException(accountId);
+        }
+        shard.log(accountId, Operation.DEPOSIT, amount);
+    }
+
+    private void debit(AccountShard shard, Long accountId, BigDecimal amount) {
+        if (shard.reduceBalance(accountId, amount) == 0) {
+            BigDecimal balance = shard.lockBalance(accountId)
+                    .orElseThrow(() -> new AccountNotFoundException(accountId));
+            throw new NotEnoughFundsException(accountId, balance, amount);
+        }
+        shard.log(accountId, Operation.WITHDRAW, amount);
+    }
+
+    private AccountIdNameBalanceDto findIdNameBalance(AccountShard shard, Long accountId) {
+        return shard.findIdNameBalance(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+    }
+
+    private BigDecimal scale(BigDecimal amount) {
+        return amount.setScale(ROUNDING_SCALE, HALF_UP);
+    }
+
+}
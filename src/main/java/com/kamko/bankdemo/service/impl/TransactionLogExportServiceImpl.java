@@ -0,0 +1,101 @@
+package com.kamko.bankdemo.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.kamko.bankdemo.config.TransactionLogProperties;
+import com.kamko.bankdemo.dto.transaction.ExportFormat;
+import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
+import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.kamko.bankdemo.repo.AccountRepo;
+import com.kamko.bankdemo.service.TransactionLogExportService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+/**
+ * Streams a history from a forward-only result set to the response. Rows are selected straight into
+ * {@link TransactionLogDto} through a {@link StatelessSession}, so no entity is hydrated or kept in a
+ * persistence context, and written as they arrive; memory stays flat however long the history is.
+ */
+@Service
+public class TransactionLogExportServiceImpl implements TransactionLogExportService {
+
+    private static final String SELECT_HISTORY = """
+            select new com.kamko.bankdemo.dto.transaction.TransactionLogDto(t.operation, t.amount, t.dateTime)
+            from TransactionLog t
+            where t.account.id = :accountId
+            order by t.account.id, t.dateTime desc, t.id desc
+            """;
+    private static final byte[] CSV_HEADER = "operation,amount,dateTime\n".getBytes(StandardCharsets.UTF_8);
+
+    private final SessionFactory sessionFactory;
+    private final AccountRepo accountRepo;
+    private final ObjectWriter jsonWriter;
+    private final int fetchSize;
+
+    public TransactionLogExportServiceImpl(EntityManagerFactory entityManagerFactory, AccountRepo accountRepo,
+                                           ObjectMapper objectMapper, TransactionLogProperties properties) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.accountRepo = accountRepo;
+        this.jsonWriter = objectMapper.writerFor(TransactionLogDto.class);
+        this.fetchSize = properties.export().fetchSize();
+    }
+
+    @Override
+    public StreamingResponseBody exportAccountTransactions(Long accountId, ExportFormat format) {
+        if (!accountRepo.existsById(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
+        return out -> write(accountId, format, out);
+    }
+
+    private void write(Long accountId, ExportFormat format, OutputStream response) throws IOException {
+        OutputStream out = new BufferedOutputStream(response);
+        if (format == ExportFormat.CSV) {
+            out.write(CSV_HEADER);
+        }
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            try (Stream<TransactionLogDto> rows = session.createQuery(SELECT_HISTORY, TransactionLogDto.class)
+                    .setParameter("accountId", accountId)
+                    .setReadOnly(true)
+                    .setFetchSize(fetchSize)
+                    .getResultStream()) {
+                Iterator<TransactionLogDto> iterator = rows.iterator();
+                for (int written = 1; iterator.hasNext(); written++) {
+                    out.write(encode(format, iterator.next()));
+                    // hands every fetched batch to the client instead of holding it in the buffer
+                    if (written % fetchSize == 0) {
+                        out.flush();
+                    }
+                }
+            } finally {
+                // read only, there is nothing to commit
+                transaction.rollback();
+            }
+        }
+        out.flush();
+    }
+
+    private byte[] encode(ExportFormat format, TransactionLogDto transaction) throws IOException {
+        String line = switch (format) {
+            case NDJSON -> jsonWriter.writeValueAsString(transaction);
+            case CSV -> transaction.operation() + "," + transaction.amount().toPlainString() + ","
+                    + ISO_LOCAL_DATE_TIME.format(transaction.dateTime());
+        };
+        return (line + '\n').getBytes(StandardCharsets.UTF_8);
+    }
+
+}
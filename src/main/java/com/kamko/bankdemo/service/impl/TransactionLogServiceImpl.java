@@ -1,5 +1,8 @@
 package com.kamko.bankdemo.service.impl;
 
+import com.kamko.bankdemo.dto.CursorPageResponse;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferItem;
+import com.kamko.bankdemo.dto.transaction.TransactionLogCursor;
 import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
 import com.kamko.bankdemo.entity.Account;
 import com.kamko.bankdemo.entity.Operation;
@@ -12,10 +15,13 @@ import com.kamko.bankdemo.service.TransactionLogService;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @AllArgsConstructor
@@ -40,13 +46,83 @@ public class TransactionLogServiceImpl implements TransactionLogService {
         transactionRepo.save(transaction);
     }
 
+    @Override
+    @Transactional
+    public void logTransfer(Account from, Account to, BigDecimal amount) {
+        List<TransactionLog> transactions = List.of(
+                new TransactionLog(Operation.WITHDRAW, amount, from),
+                new TransactionLog(Operation.DEPOSIT, amount, to)
+        );
+        transactionRepo.saveAll(transactions);
+    }
+
+    @Override
+    @Transactional
+    public void logBatchTransfer(Account from, List<BatchTransferItem> transfers) {
+        List<TransactionLog> transactions = new ArrayList<>(transfers.size() * 2);
+        for (BatchTransferItem transfer : transfers) {
+            transactions.add(new TransactionLog(Operation.WITHDRAW, transfer.amount(), from));
+            transactions.add(new TransactionLog(Operation.DEPOSIT, transfer.amount(),
+                    accountRepo.getReferenceById(transfer.toAccountId())));
+        }
+        transactionRepo.saveAll(transactions);
+    }
+
+    /**
+     * Fetches the page first and only checks that the account exists when the page comes back empty, so a
+     * history page costs the content query plus, past the first partial page, the count query.
+     */
     @Override
     public Page<TransactionLogDto> findAccountTransactions(Long accountId, Integer pageNum, Integer pageSize) {
+        Page<TransactionLogDto> page =
+                transactionRepo.findPageOfTransaction(PageRequest.of(pageNum, pageSize), accountId);
+        requireAccountIfEmpty(accountId, page);
+        return page;
+    }
+
+    @Override
+    public Slice<TransactionLogDto> findAccountTransactionSlice(Long accountId, Integer pageNum, Integer pageSize) {
+        Slice<TransactionLogDto> slice =
+                transactionRepo.findSliceOfTransaction(PageRequest.of(pageNum, pageSize), accountId);
+        requireAccountIfEmpty(accountId, slice);
+        return slice;
+    }
+
+    @Override
+    public long countAccountTransactions(Long accountId) {
+        return transactionRepo.countByAccountId(accountId);
+    }
+
+    @Override
+    public CursorPageResponse<TransactionLogDto> scrollAccountTransactions(Long accountId, String cursor,
+                                                                           Integer pageSize) {
+        PageRequest limit = PageRequest.ofSize(pageSize + 1);
+        List<TransactionLog> transactions;
+        if (cursor == null) {
+            transactions = transactionRepo.findFirstTransactions(accountId, limit);
+        } else {
+            TransactionLogCursor after = TransactionLogCursor.decode(cursor);
+            transactions = transactionRepo.findTransactionsAfter(accountId, after.dateTime(), after.id(), limit);
+        }
+        if (transactions.isEmpty()) {
+            requireAccount(accountId);
+        }
+        boolean hasNext = transactions.size() > pageSize;
+        List<TransactionLog> page = hasNext ? transactions.subList(0, pageSize) : transactions;
+        String nextCursor = hasNext ? TransactionLogCursor.after(page.get(pageSize - 1)).encode() : null;
+        return new CursorPageResponse<>(page.stream().map(transactionLogMapper::toDto).toList(), nextCursor);
+    }
+
+    private void requireAccountIfEmpty(Long accountId, Slice<TransactionLogDto> page) {
+        if (!page.hasContent()) {
+            requireAccount(accountId);
+        }
+    }
+
+    private void requireAccount(Long accountId) {
         if (!accountRepo.existsById(accountId)) {
             throw new AccountNotFoundException(accountId);
         }
-        return transactionRepo.findPageOfTransaction(PageRequest.of(pageNum, pageSize), accountId)
-                .map(transactionLogMapper::toDto);
     }
 
 }
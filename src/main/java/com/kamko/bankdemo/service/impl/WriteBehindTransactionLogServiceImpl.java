@@ -0,0 +1,91 @@
+package com.kamko.bankdemo.service.impl;
+
+import com.kamko.bankdemo.dto.CursorPageResponse;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferItem;
+import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
+import com.kamko.bankdemo.entity.Account;
+import com.kamko.bankdemo.entity.Operation;
+import com.kamko.bankdemo.journal.TransactionLogEvent;
+import com.kamko.bankdemo.journal.TransactionLogWriter;
+import com.kamko.bankdemo.service.TransactionLogService;
+import com.kamko.bankdemo.util.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Takes log writes out of the money operation: events are handed to {@link TransactionLogWriter} once the
+ * surrounding transaction has committed, so a rolled back operation leaves no log row, but a crash right after
+ * the commit loses the rows of that operation (see {@link TransactionLogWriter}). Reads go to
+ * {@link TransactionLogServiceImpl} and may miss the latest events until the writer flushes them.
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.transaction-log.write-behind", name = "enabled", havingValue = "true")
+public class WriteBehindTransactionLogServiceImpl implements TransactionLogService {
+
+    private final TransactionLogWriter writer;
+    private final TransactionLogServiceImpl transactionLogService;
+
+    @Override
+    public void logDeposit(Account account, BigDecimal amount) {
+        submitAfterCommit(List.of(new TransactionLogEvent(account.getId(), Operation.DEPOSIT, amount)));
+    }
+
+    @Override
+    public void logWithdraw(Account account, BigDecimal amount) {
+        submitAfterCommit(List.of(new TransactionLogEvent(account.getId(), Operation.WITHDRAW, amount)));
+    }
+
+    @Override
+    public void logTransfer(Account from, Account to, BigDecimal amount) {
+        submitAfterCommit(List.of(
+                new TransactionLogEvent(from.getId(), Operation.WITHDRAW, amount),
+                new TransactionLogEvent(to.getId(), Operation.DEPOSIT, amount)
+        ));
+    }
+
+    @Override
+    public void logBatchTransfer(Account from, List<BatchTransferItem> transfers) {
+        List<TransactionLogEvent> events = new ArrayList<>(transfers.size() * 2);
+        for (BatchTransferItem transfer : transfers) {
+            events.add(new TransactionLogEvent(from.getId(), Operation.WITHDRAW, transfer.amount()));
+            events.add(new TransactionLogEvent(transfer.toAccountId(), Operation.DEPOSIT, transfer.amount()));
+        }
+        submitAfterCommit(events);
+    }
+
+    @Override
+    public Page<TransactionLogDto> findAccountTransactions(Long accountId, Integer pageNum, Integer pageSize) {
+        return transactionLogService.findAccountTransactions(accountId, pageNum, pageSize);
+    }
+
+    @Override
+    public Slice<TransactionLogDto> findAccountTransactionSlice(Long accountId, Integer pageNum, Integer pageSize) {
+        return transactionLogService.findAccountTransactionSlice(accountId, pageNum, pageSize);
+    }
+
+    @Override
+    public long countAccountTransactions(Long accountId) {
+        return transactionLogService.countAccountTransactions(accountId);
+    }
+
+    @Override
+    public CursorPageResponse<TransactionLogDto> scrollAccountTransactions(Long accountId, String cursor,
+                                                                           Integer pageSize) {
+        return transactionLogService.scrollAccountTransactions(accountId, cursor, pageSize);
+    }
+
+    private void submitAfterCommit(List<TransactionLogEvent> events) {
+        AfterCommit.run(() -> writer.submit(events));
+    }
+
+}
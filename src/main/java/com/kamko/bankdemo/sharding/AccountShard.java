@@ -0,0 +1,189 @@
+package com.kamko.bankdemo.sharding;
+
+import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
+import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
+import com.kamko.bankdemo.entity.Operation;
+import com.kamko.bankdemo.util.PooledSequence;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * One database of the partitioned accounts, owning the ids {@code firstId..lastId}. Everything here runs in
+ * the shard's own local transactions, a transfer to another shard goes through
+ * {@link CrossShardTransferCoordinator}.
+ */
+public class AccountShard {
+
+    private final int index;
+    private final long firstId;
+    private final long lastId;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Runnable historyChanged;
+    private final PooledSequence accountIds;
+    private final PooledSequence logIds;
+
+    /**
+     * @param historyChanged called after every log row, shard {@code 0} evicts the cached history queries that
+     *                       read the same table through Hibernate
+     */
+    public AccountShard(int index, long firstId, long lastId, DataSource dataSource, Runnable historyChanged) {
+        this.index = index;
+        this.firstId = firstId;
+        this.lastId = lastId;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.historyChanged = historyChanged;
+        this.accountIds = new PooledSequence(jdbcTemplate, "account_seq");
+        this.logIds = new PooledSequence(jdbcTemplate, "transaction_log_seq");
+    }
+
+    public record Reservation(long accountId, BigDecimal amount) {
+    }
+
+    public int index() {
+        return index;
+    }
+
+    public boolean owns(long accountId) {
+        return accountId >= firstId && accountId <= lastId;
+    }
+
+    public <T> T inTransaction(Supplier<T> action) {
+        return transactionTemplate.execute(status -> action.get());
+    }
+
+    /**
+     * Moves {@code account_seq} into the shard's id range, unless ids from the range are already in use.
+     */
+    void initSequence() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM account", Long.class);
+        if (maxId < firstId) {
+            jdbcTemplate.execute("ALTER SEQUENCE account_seq RESTART WITH " + firstId);
+        }
+    }
+
+    public long insert(String name, String pin) {
+        long id = accountIds.next();
+        if (!owns(id)) {
+            throw new IllegalStateException("shard %d has run out of account ids".formatted(index));
+        }
+        jdbcTemplate.update("""
+                INSERT INTO account (id, name, pin, balance, created_at)
+                VALUES (?, ?, ?, 0, ?)
+                """, id, name, pin, Timestamp.valueOf(LocalDateTime.now()));
+        return id;
+    }
+
+    public long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM account", Long.class);
+    }
+
+    public List<AccountNameBalanceDto> findPage(long offset, int limit) {
+        return jdbcTemplate.query("SELECT name, balance FROM account ORDER BY id OFFSET ? ROWS FETCH NEXT ? ROWS ONLY",
+                (rs, rowNum) -> new AccountNameBalanceDto(rs.getString("name"), rs.getBigDecimal("balance")),
+                offset, limit);
+    }
+
+    public Optional<AccountIdNameBalanceDto> findIdNameBalance(long accountId) {
+        return jdbcTemplate.query("SELECT id, name, balance FROM account WHERE id = ?",
+                        (rs, rowNum) -> new AccountIdNameBalanceDto(rs.getLong("id"), rs.getString("name"),
+                                rs.getBigDecimal("balance")), accountId)
+                .stream()
+                .findFirst();
+    }
+
+    public Optional<String> findPin(long accountId) {
+        return jdbcTemplate.queryForList("SELECT pin FROM account WHERE id = ?", String.class, accountId)
+                .stream()
+                .findFirst();
+    }
+
+    public int updatePin(long accountId, String oldPin, String newPin) {
+        return jdbcTemplate.update("UPDATE account SET pin = ?, version = version + 1 WHERE id = ? AND pin = ?",
+                newPin, accountId, oldPin);
+    }
+
+    /**
+     * Locks the account for the rest of the transaction.
+     *
+     * @return the balance, empty if the account doesn't exist
+     */
+    public Optional<BigDecimal> lockBalance(long accountId) {
+        return jdbcTemplate.queryForList("SELECT balance FROM account WHERE id = ? FOR UPDATE", BigDecimal.class,
+                        accountId)
+                .stream()
+                .findFirst();
+    }
+
+    public int increaseBalance(long accountId, BigDecimal amount) {
+        return jdbcTemplate.update("UPDATE account SET balance = balance + ?, version = version + 1 WHERE id = ?",
+                amount, accountId);
+    }
+
+    /**
+     * @return 0 if the account doesn't exist or its balance is lower than the amount
+     */
+    public int reduceBalance(long accountId, BigDecimal amount) {
+        return jdbcTemplate.update("""
+                UPDATE account
+                SET balance = balance - ?, version = version + 1
+                WHERE id = ? AND balance >= ?
+                """, amount, accountId, amount);
+    }
+
+    public void log(long accountId, Operation operation, BigDecimal amount) {
+        jdbcTemplate.update("""
+                INSERT INTO transaction_log (id, account_id, operation, amount, date_time)
+                VALUES (?, ?, ?, ?, ?)
+                """, logIds.next(), accountId, operation.name(), amount, Timestamp.valueOf(LocalDateTime.now()));
+        historyChanged.run();
+    }
+
+    /**
+     * @param amount negative for a debit that is already taken from the balance, positive for a credit that
+     *               is applied on commit
+     */
+    public void reserve(String transferId, long accountId, BigDecimal amount) {
+        jdbcTemplate.update("""
+                INSERT INTO account_reservation (transfer_id, account_id, amount, status)
+                VALUES (?, ?, ?, ?)
+                """, transferId, accountId, amount, ReservationStatus.PREPARED.name());
+    }
+
+    public List<Reservation> findPrepared(String transferId) {
+        return jdbcTemplate.query("""
+                        SELECT account_id, amount
+                        FROM account_reservation
+                        WHERE transfer_id = ? AND status = ?
+                        ORDER BY account_id
+                        FOR UPDATE
+                        """, (rs, rowNum) -> new Reservation(rs.getLong("account_id"), rs.getBigDecimal("amount")),
+                transferId, ReservationStatus.PREPARED.name());
+    }
+
+    /**
+     * @return 0 if the reservation is already resolved, e.g. by a recovery running at the same time
+     */
+    public int resolve(String transferId, long accountId, ReservationStatus status) {
+        return jdbcTemplate.update("""
+                UPDATE account_reservation
+                SET status = ?
+                WHERE transfer_id = ? AND account_id = ? AND status = ?
+                """, status.name(), transferId, accountId, ReservationStatus.PREPARED.name());
+    }
+
+    JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+}
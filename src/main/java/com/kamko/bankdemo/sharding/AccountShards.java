@@ -0,0 +1,90 @@
+package com.kamko.bankdemo.sharding;
+
+import com.kamko.bankdemo.cache.SecondLevelCacheInvalidator;
+import com.kamko.bankdemo.config.ShardingProperties;
+import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes account ids to their {@link AccountShard} by range. Shard {@code 0} is the application datasource,
+ * the others are opened here and migrated with the same Liquibase changelog. New accounts are spread over the
+ * shards round-robin.
+ */
+@Component
+@DependsOnDatabaseInitialization
+@ConditionalOnProperty(prefix = "app.account", name = "engine", havingValue = "sharded")
+public class AccountShards implements DisposableBean {
+
+    private final List<AccountShard> shards = new ArrayList<>();
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public AccountShards(ShardingProperties properties, DataSource dataSource,
+                         LiquibaseProperties liquibaseProperties, ResourceLoader resourceLoader,
+                         SecondLevelCacheInvalidator cacheInvalidator) throws Exception {
+        long rangeSize = properties.rangeSize();
+        shards.add(new AccountShard(0, 1, rangeSize, dataSource, cacheInvalidator::evictTransactionHistory));
+        for (ShardingProperties.Shard shard : properties.shards()) {
+            HikariDataSource shardDataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.url())
+                    .username(shard.username())
+                    .password(shard.password())
+                    .build();
+            dataSources.add(shardDataSource);
+            migrate(shardDataSource, liquibaseProperties, resourceLoader);
+            int index = shards.size();
+            shards.add(new AccountShard(index, index * rangeSize + 1, (index + 1) * rangeSize, shardDataSource,
+                    () -> {
+                    }));
+        }
+        shards.forEach(AccountShard::initSequence);
+    }
+
+    public AccountShard shardOf(long accountId) {
+        return shards.stream()
+                .filter(shard -> shard.owns(accountId))
+                .findFirst()
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+    }
+
+    public AccountShard get(int index) {
+        return shards.get(index);
+    }
+
+    public List<AccountShard> all() {
+        return shards;
+    }
+
+    public AccountShard nextForNewAccount() {
+        return shards.get(Math.floorMod(nextShard.getAndIncrement(), shards.size()));
+    }
+
+    @Override
+    public void destroy() {
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+    private static void migrate(DataSource dataSource, LiquibaseProperties liquibaseProperties,
+                                ResourceLoader resourceLoader) throws Exception {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog(liquibaseProperties.getChangeLog());
+        liquibase.setResourceLoader(resourceLoader);
+        liquibase.afterPropertiesSet();
+    }
+
+}
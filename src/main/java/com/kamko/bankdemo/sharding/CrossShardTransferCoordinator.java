@@ -0,0 +1,225 @@
+package com.kamko.bankdemo.sharding;
+
+import com.kamko.bankdemo.entity.Operation;
+import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.kamko.bankdemo.exception.NotEnoughFundsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Moves money from one account to accounts on other shards with a two-phase reservation protocol. The
+ * coordinator's journal is the {@code cross_shard_transfer} table on shard {@code 0}, each participant's is
+ * its {@code account_reservation} table.
+ * <ol>
+ *     <li>The transfer is journalled as {@code PREPARING} together with the shards taking part.</li>
+ *     <li>Each shard prepares in a local transaction: the source takes the amount off the balance right away,
+ *     recipients only check that the account exists. Both record a {@code PREPARED} reservation.</li>
+ *     <li>If every shard prepared, the transfer becomes {@code COMMITTING} and each shard commits its
+ *     reservations, crediting the recipients; otherwise it becomes {@code ABORTING} and the source gets its
+ *     money back.</li>
+ * </ol>
+ * Both phases only touch {@code PREPARED} reservations, so repeating them is harmless. On startup every
+ * transfer that isn't {@code DONE} is finished: {@code PREPARING} ones are aborted, the rest are driven to the
+ * outcome they were journalled with. While running, transfers that are already decided but couldn't be applied
+ * everywhere are retried every {@code recovery-interval}; {@code PREPARING} ones are left alone there, they may
+ * still be in flight.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.account", name = "engine", havingValue = "sharded")
+public class CrossShardTransferCoordinator implements SmartLifecycle {
+
+    private final AccountShards shards;
+    private final JdbcTemplate journal;
+    private volatile boolean running;
+
+    public CrossShardTransferCoordinator(AccountShards shards) {
+        this.shards = shards;
+        this.journal = shards.get(0).jdbcTemplate();
+    }
+
+    /**
+     * Debits the source once with the total and credits every recipient, all or nothing.
+     *
+     * @param credits amounts per recipient, none of them on the source's own shard is required
+     */
+    public void transfer(long fromAccountId, SortedMap<Long, BigDecimal> credits) {
+        BigDecimal total = credits.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        Map<AccountShard, SortedMap<Long, BigDecimal>> reservations = new LinkedHashMap<>();
+        reservations.computeIfAbsent(shards.shardOf(fromAccountId), shard -> new TreeMap<>())
+                .put(fromAccountId, total.negate());
+        credits.forEach((accountId, amount) -> reservations
+                .computeIfAbsent(shards.shardOf(accountId), shard -> new TreeMap<>())
+                .merge(accountId, amount, BigDecimal::add));
+
+        String transferId = UUID.randomUUID().toString();
+        journal.update("INSERT INTO cross_shard_transfer (id, status, shards, created_at) VALUES (?, ?, ?, ?)",
+                transferId, TransferStatus.PREPARING.name(), encodeShards(reservations.keySet()),
+                Timestamp.valueOf(LocalDateTime.now()));
+        try {
+            reservations.forEach((shard, amounts) -> prepare(shard, transferId, amounts));
+        } catch (RuntimeException e) {
+            setStatus(transferId, TransferStatus.ABORTING);
+            reservations.keySet().forEach(shard -> abort(shard, transferId));
+            setStatus(transferId, TransferStatus.DONE);
+            throw e;
+        }
+        setStatus(transferId, TransferStatus.COMMITTING);
+        try {
+            reservations.keySet().forEach(shard -> commit(shard, transferId));
+            setStatus(transferId, TransferStatus.DONE);
+        } catch (RuntimeException e) {
+            // the transfer is decided, finishDecided() applies the rest
+            log.error("cross-shard transfer {} is committed but not applied everywhere yet", transferId, e);
+        }
+    }
+
+    /**
+     * Finishes every transfer that was interrupted before reaching {@code DONE}.
+     */
+    public void recover() {
+        finish(journal.queryForList(
+                "SELECT id, status, shards FROM cross_shard_transfer WHERE status <> ? ORDER BY created_at",
+                TransferStatus.DONE.name()));
+    }
+
+    /**
+     * Finishes the transfers that are {@code COMMITTING} or {@code ABORTING}, so a shard that failed during the
+     * second phase gets its part as soon as it is reachable again instead of on the next start.
+     */
+    @Scheduled(fixedDelayString = "${app.account.sharding.recovery-interval}")
+    public void finishDecided() {
+        if (!running) {
+            return;
+        }
+        finish(journal.queryForList(
+                "SELECT id, status, shards FROM cross_shard_transfer WHERE status IN (?, ?) ORDER BY created_at",
+                TransferStatus.COMMITTING.name(), TransferStatus.ABORTING.name()));
+    }
+
+    @Override
+    public void start() {
+        recover();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before the web server, so no transfer is accepted while in-doubt ones are being recovered.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void finish(List<Map<String, Object>> inDoubt) {
+        for (Map<String, Object> transfer : inDoubt) {
+            String transferId = (String) transfer.get("id");
+            TransferStatus status = TransferStatus.valueOf((String) transfer.get("status"));
+            List<AccountShard> participants = decodeShards((String) transfer.get("shards"));
+            try {
+                if (status == TransferStatus.COMMITTING) {
+                    participants.forEach(shard -> commit(shard, transferId));
+                } else {
+                    setStatus(transferId, TransferStatus.ABORTING);
+                    participants.forEach(shard -> abort(shard, transferId));
+                }
+                setStatus(transferId, TransferStatus.DONE);
+                log.info("recovered cross-shard transfer {} from {}", transferId, status);
+            } catch (RuntimeException e) {
+                log.error("failed to recover cross-shard transfer {} from {}, will retry", transferId, status, e);
+            }
+        }
+    }
+
+    private void prepare(AccountShard shard, String transferId, SortedMap<Long, BigDecimal> amounts) {
+        shard.inTransaction(() -> {
+            amounts.forEach((accountId, amount) -> {
+                if (amount.signum() < 0) {
+                    BigDecimal debit = amount.negate();
+                    if (shard.reduceBalance(accountId, debit) == 0) {
+                        BigDecimal balance = shard.lockBalance(accountId)
+                                .orElseThrow(() -> new AccountNotFoundException(accountId));
+                        throw new NotEnoughFundsException(accountId, balance, debit);
+                    }
+                } else if (shard.lockBalance(accountId).isEmpty()) {
+                    throw new AccountNotFoundException(accountId);
+                }
+                shard.reserve(transferId, accountId, amount);
+            });
+            return null;
+        });
+    }
+
+    private void commit(AccountShard shard, String transferId) {
+        shard.inTransaction(() -> {
+            for (AccountShard.Reservation reservation : shard.findPrepared(transferId)) {
+                if (shard.resolve(transferId, reservation.accountId(), ReservationStatus.COMMITTED) == 0) {
+                    continue;
+                }
+                if (reservation.amount().signum() > 0) {
+                    shard.increaseBalance(reservation.accountId(), reservation.amount());
+                    shard.log(reservation.accountId(), Operation.DEPOSIT, reservation.amount());
+                } else {
+                    shard.log(reservation.accountId(), Operation.WITHDRAW, reservation.amount().negate());
+                }
+            }
+            return null;
+        });
+    }
+
+    private void abort(AccountShard shard, String transferId) {
+        shard.inTransaction(() -> {
+            for (AccountShard.Reservation reservation : shard.findPrepared(transferId)) {
+                if (shard.resolve(transferId, reservation.accountId(), ReservationStatus.ABORTED) == 1
+                        && reservation.amount().signum() < 0) {
+                    shard.increaseBalance(reservation.accountId(), reservation.amount().negate());
+                }
+            }
+            return null;
+        });
+    }
+
+    private void setStatus(String transferId, TransferStatus status) {
+        journal.update("UPDATE cross_shard_transfer SET status = ? WHERE id = ?", status.name(), transferId);
+    }
+
+    private static String encodeShards(Collection<AccountShard> participants) {
+        return participants.stream()
+                .map(shard -> String.valueOf(shard.index()))
+                .collect(Collectors.joining(","));
+    }
+
+    private List<AccountShard> decodeShards(String participants) {
+        return Arrays.stream(participants.split(","))
+                .map(index -> shards.get(Integer.parseInt(index)))
+                .toList();
+    }
+
+}
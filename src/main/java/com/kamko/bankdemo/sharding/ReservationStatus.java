@@ -0,0 +1,5 @@
+package com.kamko.bankdemo.sharding;
+
+public enum ReservationStatus {
+    PREPARED, COMMITTED, ABORTED
+}
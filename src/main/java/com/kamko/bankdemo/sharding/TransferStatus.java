@@ -0,0 +1,9 @@
+package com.kamko.bankdemo.sharding;
+
+/**
+ * Coordinator side of a cross-shard transfer. {@code COMMITTING} is the decision point: from there on the
+ * transfer is completed on every shard, before it every prepared reservation is rolled back.
+ */
+public enum TransferStatus {
+    PREPARING, COMMITTING, ABORTING, DONE
+}
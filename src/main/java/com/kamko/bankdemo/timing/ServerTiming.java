@@ -0,0 +1,72 @@
+package com.kamko.bankdemo.timing;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Durations of the parts of one request, collected on the request thread while {@link ServerTimingFilter} has
+ * it open and rendered as a {@code Server-Timing} header. Outside such a request {@link #current()} is
+ * {@code null} and the probes cost a thread-local read.
+ */
+public final class ServerTiming {
+
+    public static final String VALIDATION = "validation";
+    public static final String PIN = "pin";
+    public static final String SQL = "sql";
+    public static final String MAPPING = "mapping";
+    public static final String SERIALIZATION = "serialization";
+    public static final String TOTAL = "total";
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+    /**
+     * @return the timing of the request being served on this thread, {@code null} if it wasn't asked for
+     */
+    public static ServerTiming current() {
+        return CURRENT.get();
+    }
+
+    static ServerTiming open() {
+        ServerTiming timing = new ServerTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void close() {
+        CURRENT.remove();
+    }
+
+    public void add(String metric, long nanos) {
+        metrics.computeIfAbsent(metric, name -> new Metric()).add(nanos);
+    }
+
+    /**
+     * Metrics in the order they were first recorded, e.g. {@code pin;dur=3.412, sql;dur=1.020;desc="4 calls"}.
+     */
+    public String header() {
+        StringJoiner header = new StringJoiner(", ");
+        metrics.forEach((name, metric) -> {
+            String entry = name + ";dur=" + String.format(Locale.ROOT, "%.3f", metric.nanos / NANOS_PER_MILLI);
+            header.add(metric.calls > 1 ? entry + ";desc=\"" + metric.calls + " calls\"" : entry);
+        });
+        return header.toString();
+    }
+
+    private static final class Metric {
+
+        private long nanos;
+        private int calls;
+
+        private void add(long nanos) {
+            this.nanos += nanos;
+            calls++;
+        }
+
+    }
+
+}
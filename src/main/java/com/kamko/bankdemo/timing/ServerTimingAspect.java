@@ -0,0 +1,36 @@
+package com.kamko.bankdemo.timing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Adds the PIN check and the entity/DTO mapping of a timed request to its {@link ServerTiming}.
+ */
+@Aspect
+public class ServerTimingAspect {
+
+    @Around("execution(* com.kamko.bankdemo.service.SecurityService+.verifyPin(..))")
+    public Object timePin(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(ServerTiming.PIN, joinPoint);
+    }
+
+    @Around("execution(public * com.kamko.bankdemo.mapper.*Mapper+.*(..))")
+    public Object timeMapping(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(ServerTiming.MAPPING, joinPoint);
+    }
+
+    private static Object time(String metric, ProceedingJoinPoint joinPoint) throws Throwable {
+        ServerTiming timing = ServerTiming.current();
+        if (timing == null) {
+            return joinPoint.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timing.add(metric, System.nanoTime() - start);
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.kamko.bankdemo.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Opens a {@link ServerTiming} for requests that carry the debug header and answers them with a
+ * {@code Server-Timing} header. The body is held back until the request is done, so the header can include
+ * serialization; requests without the debug header pass straight through.
+ */
+@RequiredArgsConstructor
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    private final String requestHeader;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(requestHeader) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper bufferedResponse = new ContentCachingResponseWrapper(response);
+        ServerTiming timing = ServerTiming.open();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, bufferedResponse);
+        } finally {
+            ServerTiming.close();
+            timing.add(ServerTiming.TOTAL, System.nanoTime() - start);
+            bufferedResponse.setHeader(SERVER_TIMING, timing.header());
+            bufferedResponse.copyBodyToResponse();
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.kamko.bankdemo.timing;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds the time Hibernate spends executing statements and batches to the {@link ServerTiming} of the request.
+ * Hibernate creates one per session; statements run through {@code JdbcTemplate} are not seen here.
+ */
+public class ServerTimingSessionListener implements SessionEventListener {
+
+    private long start;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record();
+    }
+
+    private void record() {
+        ServerTiming timing = ServerTiming.current();
+        if (timing != null) {
+            timing.add(ServerTiming.SQL, System.nanoTime() - start);
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.kamko.bankdemo.timing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+/**
+ * Bean validation of request bodies, timed into the {@link ServerTiming} of the request.
+ */
+@RequiredArgsConstructor
+public class TimingValidator implements SmartValidator {
+
+    private final SmartValidator delegate;
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return delegate.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        validate(target, errors, new Object[0]);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        ServerTiming timing = ServerTiming.current();
+        if (timing == null) {
+            delegate.validate(target, errors, validationHints);
+            return;
+        }
+        long start = System.nanoTime();
+        delegate.validate(target, errors, validationHints);
+        timing.add(ServerTiming.VALIDATION, System.nanoTime() - start);
+    }
+
+}
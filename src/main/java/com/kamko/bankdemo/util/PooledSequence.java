@@ -0,0 +1,33 @@
+package com.kamko.bankdemo.util;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Hands out ids for plain JDBC inserts from a sequence that moves by a whole block per call, the same way
+ * Hibernate does for the entities' {@code @SequenceGenerator(allocationSize = 50)}: a fetched value {@code v}
+ * reserves {@code v .. v + 49}. Writers sharing a sequence with Hibernate therefore never collide with it, and
+ * don't burn 49 of every 50 ids either.
+ */
+public class PooledSequence {
+
+    public static final int BLOCK_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValue;
+    private long next;
+    private long end;
+
+    public PooledSequence(JdbcTemplate jdbcTemplate, String sequence) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValue = "SELECT NEXT VALUE FOR " + sequence;
+    }
+
+    public synchronized long next() {
+        if (next == end) {
+            next = jdbcTemplate.queryForObject(nextValue, Long.class);
+            end = next + BLOCK_SIZE;
+        }
+        return next++;
+    }
+
+}
@@ -0,0 +1,5 @@
+--liquibase formatted sql
+
+--changeset RomanKamko:1
+CREATE INDEX IF NOT EXISTS idx_transaction_log_account_date_time
+    ON transaction_log (account_id, date_time DESC, id DESC, operation, amount);
@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset RomanKamko:1
+CREATE SEQUENCE IF NOT EXISTS account_seq START WITH 1 INCREMENT BY 50;
+
+--changeset RomanKamko:2
+CREATE SEQUENCE IF NOT EXISTS transaction_log_seq START WITH 1 INCREMENT BY 50;
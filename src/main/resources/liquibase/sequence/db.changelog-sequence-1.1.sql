@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset RomanKamko:1
+ALTER SEQUENCE account_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM account);
+
+--changeset RomanKamko:2
+ALTER SEQUENCE transaction_log_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM transaction_log);
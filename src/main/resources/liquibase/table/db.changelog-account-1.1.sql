@@ -0,0 +1,5 @@
+--liquibase formatted sql
+
+--changeset RomanKamko:1
+ALTER TABLE account
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,20 @@
+--liquibase formatted sql
+
+--changeset RomanKamko:1
+CREATE TABLE IF NOT EXISTS cross_shard_transfer
+(
+    id         VARCHAR(36) PRIMARY KEY,
+    status     VARCHAR(16) NOT NULL,
+    shards     VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP   NOT NULL
+);
+
+--changeset RomanKamko:2
+CREATE TABLE IF NOT EXISTS account_reservation
+(
+    transfer_id VARCHAR(36)    NOT NULL,
+    account_id  BIGINT         NOT NULL REFERENCES account (id),
+    amount      DECIMAL(11, 2) NOT NULL,
+    status      VARCHAR(16)    NOT NULL,
+    PRIMARY KEY (transfer_id, account_id)
+);
@@ -0,0 +1,14 @@
+--liquibase formatted sql
+
+--changeset RomanKamko:1
+CREATE TABLE IF NOT EXISTS idempotency_key
+(
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    fingerprint     CHAR(64)  NOT NULL,
+    response        CLOB,
+    created_at      TIMESTAMP NOT NULL
+);
+
+--changeset RomanKamko:2
+CREATE INDEX IF NOT EXISTS idx_idempotency_key_created_at
+    ON idempotency_key (created_at);
@@ -0,0 +1,12 @@
+--liquibase formatted sql
+
+--changeset RomanKamko:1
+ALTER TABLE idempotency_key
+    ADD COLUMN IF NOT EXISTS claim_id CHAR(36);
+
+--changeset RomanKamko:2
+ALTER TABLE idempotency_key
+    ADD COLUMN IF NOT EXISTS claimed_at TIMESTAMP;
+UPDATE idempotency_key SET claimed_at = created_at;
+ALTER TABLE idempotency_key
+    ALTER COLUMN claimed_at SET NOT NULL;
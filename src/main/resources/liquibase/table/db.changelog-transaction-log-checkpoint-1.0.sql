@@ -0,0 +1,11 @@
+--liquibase formatted sql
+
+--changeset RomanKamko:1
+CREATE TABLE IF NOT EXISTS transaction_log_checkpoint
+(
+    id            INT PRIMARY KEY,
+    last_sequence BIGINT NOT NULL
+);
+
+INSERT INTO transaction_log_checkpoint (id, last_sequence)
+VALUES (1, 0);
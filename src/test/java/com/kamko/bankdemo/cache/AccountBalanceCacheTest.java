@@ -0,0 +1,108 @@
+package com.kamko.bankdemo.cache;
+
+import com.kamko.bankdemo.config.AccountCacheProperties;
+import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class AccountBalanceCacheTest {
+
+    private static final AccountIdNameBalanceDto ACCOUNT =
+            new AccountIdNameBalanceDto(1L, "first", new BigDecimal("100.00"));
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_loadsOnceAndRecordsHits() {
+        AccountBalanceCache cache = createCache(true);
+        cache.get(1L, loader());
+        cache.get(1L, loader());
+        assertAll(
+                () -> assertThat(cache.get(1L, loader())).contains(ACCOUNT),
+                () -> assertThat(loads).hasValue(1),
+                () -> assertThat(gets("hit")).isEqualTo(2),
+                () -> assertThat(gets("miss")).isEqualTo(1)
+        );
+    }
+
+    @Test
+    void get_missingAccountIsNotCached() {
+        AccountBalanceCache cache = createCache(true);
+        assertAll(
+                () -> assertThat(cache.get(2L, loader())).isEmpty(),
+                () -> assertThat(cache.get(2L, loader())).isEmpty(),
+                () -> assertThat(loads).hasValue(2)
+        );
+    }
+
+    @Test
+    void evict_reloadsBalance() {
+        AccountBalanceCache cache = createCache(true);
+        cache.get(1L, loader());
+        cache.evict(List.of(1L));
+        assertAll(
+                () -> assertThat(cache.get(1L, loader())).contains(ACCOUNT),
+                () -> assertThat(loads).hasValue(2)
+        );
+    }
+
+    @Test
+    void evict_isDeferredUntilCommit() {
+        AccountBalanceCache cache = createCache(true);
+        cache.get(1L, loader());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evict(List.of(1L));
+            cache.get(1L, loader());
+            assertThat(loads).hasValue(1);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        cache.get(1L, loader());
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void disabled_alwaysLoads() {
+        AccountBalanceCache cache = createCache(false);
+        cache.evict(List.of(1L));
+        cache.get(1L, loader());
+        cache.get(1L, loader());
+        assertAll(
+                () -> assertThat(loads).hasValue(2),
+                () -> assertThat(meterRegistry.find("cache.gets").meters()).isEmpty()
+        );
+    }
+
+    private Function<Long, Optional<AccountIdNameBalanceDto>> loader() {
+        return accountId -> {
+            loads.incrementAndGet();
+            return accountId.equals(ACCOUNT.id()) ? Optional.of(ACCOUNT) : Optional.empty();
+        };
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", AccountBalanceCache.NAME).tag("result", result)
+                .functionCounter().count();
+    }
+
+    private AccountBalanceCache createCache(boolean enabled) {
+        return new AccountBalanceCache(new AccountCacheProperties(enabled, 100, Duration.ofMinutes(1)), meterRegistry);
+    }
+
+}
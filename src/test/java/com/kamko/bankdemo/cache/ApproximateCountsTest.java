@@ -0,0 +1,59 @@
+package com.kamko.bankdemo.cache;
+
+import com.kamko.bankdemo.config.ApproximateCountProperties;
+import com.kamko.bankdemo.service.AccountService;
+import com.kamko.bankdemo.service.TransactionLogService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ApproximateCountsTest {
+
+    @Mock
+    private AccountService accountService;
+    @Mock
+    private TransactionLogService transactionLogService;
+
+    private ApproximateCounts approximateCounts;
+
+    @BeforeEach
+    void setUp() {
+        approximateCounts = new ApproximateCounts(
+                new ApproximateCountProperties(100, Duration.ofMinutes(1), Duration.ofMinutes(10)),
+                accountService, transactionLogService, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void accounts_countedOncePerRefreshInterval() {
+        doReturn(5L, 6L).when(accountService).count();
+        approximateCounts.accounts();
+        assertAll(
+                () -> assertThat(approximateCounts.accounts()).isEqualTo(5),
+                () -> verify(accountService, times(1)).count()
+        );
+    }
+
+    @Test
+    void accountTransactions_countedPerAccount() {
+        doReturn(3L).when(transactionLogService).countAccountTransactions(1L);
+        doReturn(8L).when(transactionLogService).countAccountTransactions(2L);
+        assertAll(
+                () -> assertThat(approximateCounts.accountTransactions(1L)).isEqualTo(3),
+                () -> assertThat(approximateCounts.accountTransactions(2L)).isEqualTo(8),
+                () -> assertThat(approximateCounts.accountTransactions(1L)).isEqualTo(3),
+                () -> verify(transactionLogService, times(1)).countAccountTransactions(1L),
+                () -> verifyNoInteractions(accountService)
+        );
+    }
+
+}
@@ -1,36 +1,49 @@
 package com.kamko.bankdemo.controller;
 
+import com.kamko.bankdemo.cache.ApproximateCounts;
 import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
 import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
 import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferRequest;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferResponse;
 import com.kamko.bankdemo.dto.account_operation.DepositRequest;
 import com.kamko.bankdemo.dto.account_operation.TransferRequest;
 import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
 import com.kamko.bankdemo.exception.AccountNotFoundException;
 import com.kamko.bankdemo.exception.IdMatchingException;
+import com.kamko.bankdemo.exception.IdempotencyKeyMismatchException;
+import com.kamko.bankdemo.exception.IdempotentRequestInProgressException;
 import com.kamko.bankdemo.exception.NotEnoughFundsException;
+import com.kamko.bankdemo.exception.PinHashingOverloadedException;
 import com.kamko.bankdemo.exception.WrongPinException;
+import com.kamko.bankdemo.service.IdempotencyService;
 import com.kamko.bankdemo.service.impl.AccountServiceImpl;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -42,11 +55,16 @@ class AccountControllerTest {
 
     @MockBean
     private AccountServiceImpl accountService;
+    @MockBean
+    private IdempotencyService idempotencyService;
+    @MockBean
+    private ApproximateCounts approximateCounts;
 
     private static final String BASE_PATH = "/api/v1/accounts";
     private static JSONObject DEPOSIT_REQUEST;
     private static JSONObject WITHDRAW_REQUEST;
     private static JSONObject TRANSFER_REQUEST;
+    private static JSONObject BATCH_TRANSFER_REQUEST;
 
     @BeforeAll
     static void beforeAll() {
@@ -65,6 +83,21 @@ class AccountControllerTest {
                 "amount", BigDecimal.TEN,
                 "pin", "1111"
         )));
+        BATCH_TRANSFER_REQUEST = new JSONObject(new HashMap<>(Map.of(
+                "fromAccountId", 1L,
+                "pin", "1111",
+                "mode", "BEST_EFFORT",
+                "transfers", List.of(
+                        Map.of("toAccountId", 2L, "amount", BigDecimal.TEN),
+                        Map.of("toAccountId", 3L, "amount", BigDecimal.ONE)
+                )
+        )));
+    }
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get())
+                .when(idempotencyService).execute(any(), anyString(), any(), any(), any());
     }
 
     @Test
@@ -92,6 +125,60 @@ class AccountControllerTest {
                 );
     }
 
+    @Test
+    void findAll_withoutCount() throws Exception {
+        List<AccountNameBalanceDto> content = List.of(new AccountNameBalanceDto("first", BigDecimal.valueOf(1000)));
+        doReturn(new SliceImpl<>(content, PageRequest.of(0, 1), true)).when(accountService).findSlice(0, 1);
+        mockMvc.perform(get(BASE_PATH)
+                        .param("pageNumber", "0")
+                        .param("pageSize", "1")
+                        .param("count", "NONE")
+                        .accept(APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.content[0].name").value("first"),
+                        jsonPath("$.metadata.totalElement").doesNotExist(),
+                        jsonPath("$.metadata.hasNext").value(true)
+                );
+    }
+
+    @Test
+    void findAll_approximateCount() throws Exception {
+        List<AccountNameBalanceDto> content = List.of(new AccountNameBalanceDto("first", BigDecimal.valueOf(1000)));
+        doReturn(new SliceImpl<>(content, PageRequest.of(0, 1), true)).when(accountService).findSlice(0, 1);
+        doReturn(40L).when(approximateCounts).accounts();
+        mockMvc.perform(get(BASE_PATH)
+                        .param("pageNumber", "0")
+                        .param("pageSize", "1")
+                        .param("count", "APPROXIMATE")
+                        .accept(APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.metadata.totalElement").value(40),
+                        jsonPath("$.metadata.hasNext").value(true)
+                );
+    }
+
+    @Test
+    void findById_success() throws Exception {
+        doReturn(new AccountIdNameBalanceDto(1L, "first", BigDecimal.TEN)).when(accountService).findById(1L);
+        mockMvc.perform(get(BASE_PATH + "/1")
+                        .accept(APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.id").value(1),
+                        jsonPath("$.balance").value(10)
+                );
+    }
+
+    @Test
+    void findById_notFound() throws Exception {
+        doThrow(new AccountNotFoundException(3L)).when(accountService).findById(3L);
+        mockMvc.perform(get(BASE_PATH + "/3")
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void create_success() throws Exception {
         AccountIdNameBalanceDto response = new AccountIdNameBalanceDto(1L, "first", BigDecimal.ZERO);
@@ -184,6 +271,19 @@ class AccountControllerTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    void withdraw_pinHashingOverloadedException() throws Exception {
+        doThrow(PinHashingOverloadedException.class).when(accountService).withdraw(any(WithdrawRequest.class));
+        mockMvc.perform(put(BASE_PATH + "/withdraw")
+                        .content(WITHDRAW_REQUEST.toString())
+                        .contentType(APPLICATION_JSON)
+                        .accept(APPLICATION_JSON))
+                .andExpectAll(
+                        status().isServiceUnavailable(),
+                        header().exists(HttpHeaders.RETRY_AFTER)
+                );
+    }
+
     @Test
     void transfer_success() throws Exception {
         mockMvc.perform(put(BASE_PATH + "/transfer")
@@ -203,4 +303,65 @@ class AccountControllerTest {
                 .andExpect(status().isConflict());
     }
 
-}
\ No newline at end of file
+    @Test
+    void transferBatch_success() throws Exception {
+        BatchTransferResponse response = new BatchTransferResponse(1L, BigDecimal.valueOf(990), List.of(
+                new BatchTransferResponse.ItemResult(2L, BigDecimal.TEN, BatchTransferResponse.Status.COMPLETED, null),
+                new BatchTransferResponse.ItemResult(3L, BigDecimal.ONE, BatchTransferResponse.Status.FAILED,
+                        "account with id: 3 not found")
+        ));
+        doReturn(response).when(accountService).transferBatch(any(BatchTransferRequest.class));
+        mockMvc.perform(post(BASE_PATH + "/transfers/batch")
+                        .content(BATCH_TRANSFER_REQUEST.toString())
+                        .contentType(APPLICATION_JSON)
+                        .accept(APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.balance").value(990),
+                        jsonPath("$.results[0].status").value("COMPLETED"),
+                        jsonPath("$.results[1].status").value("FAILED")
+                );
+    }
+
+    @Test
+    void transferBatch_emptyTransfers() throws Exception {
+        JSONObject request = new JSONObject(new HashMap<>(Map.of(
+                "fromAccountId", 1L,
+                "pin", "1111",
+                "transfers", List.of()
+        )));
+        mockMvc.perform(post(BASE_PATH + "/transfers/batch")
+                        .content(request.toString())
+                        .contentType(APPLICATION_JSON)
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void deposit_idempotencyKeyMismatch() throws Exception {
+        doThrow(new IdempotencyKeyMismatchException("key"))
+                .when(idempotencyService).execute(eq("key"), eq("deposit"), any(), any(), any());
+        mockMvc.perform(put(BASE_PATH + "/deposit")
+                        .header(AccountController.IDEMPOTENCY_KEY, "key")
+                        .content(DEPOSIT_REQUEST.toString())
+                        .contentType(APPLICATION_JSON)
+                        .accept(APPLICATION_JSON))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void transfer_idempotentRequestInProgress() throws Exception {
+        doThrow(new IdempotentRequestInProgressException("key"))
+                .when(idempotencyService).execute(eq("key"), eq("transfer"), any(), any(), any());
+        mockMvc.perform(put(BASE_PATH + "/transfer")
+                        .header(AccountController.IDEMPOTENCY_KEY, "key")
+                        .content(TRANSFER_REQUEST.toString())
+                        .contentType(APPLICATION_JSON)
+                        .accept(APPLICATION_JSON))
+                .andExpectAll(
+                        status().isConflict(),
+                        header().string(HttpHeaders.RETRY_AFTER, "1")
+                );
+    }
+
+}
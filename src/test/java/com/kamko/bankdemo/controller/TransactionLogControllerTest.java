@@ -1,28 +1,44 @@
 package com.kamko.bankdemo.controller;
 
+import com.kamko.bankdemo.cache.ApproximateCounts;
+import com.kamko.bankdemo.dto.CursorPageResponse;
+import com.kamko.bankdemo.dto.transaction.ExportFormat;
 import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
 import com.kamko.bankdemo.entity.Operation;
 import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.kamko.bankdemo.exception.InvalidCursorException;
+import com.kamko.bankdemo.service.TransactionLogExportService;
 import com.kamko.bankdemo.service.impl.TransactionLogServiceImpl;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -31,6 +47,10 @@ class TransactionLogControllerTest {
 
     @MockBean
     private TransactionLogServiceImpl transactionLogService;
+    @MockBean
+    private ApproximateCounts approximateCounts;
+    @MockBean
+    private TransactionLogExportService exportService;
 
     @Autowired
     private MockMvc mockMvc;
@@ -59,10 +79,72 @@ class TransactionLogControllerTest {
                         jsonPath("$.content[1].dateTime").value(dateTime.format(ISO_LOCAL_DATE_TIME)),
                         jsonPath("$.metadata.page").value("0"),
                         jsonPath("$.metadata.size").value("2"),
-                        jsonPath("$.metadata.totalElement").value("2")
+                        jsonPath("$.metadata.totalElement").value("2"),
+                        jsonPath("$.metadata.hasNext").value(false)
+                );
+    }
+
+    @Test
+    void findAccountTransactions_withoutCount() throws Exception {
+        List<TransactionLogDto> content = List.of(new TransactionLogDto(Operation.DEPOSIT, BigDecimal.TEN, null));
+        var slice = new SliceImpl<>(content, PageRequest.of(0, 1), true);
+        doReturn(slice).when(transactionLogService).findAccountTransactionSlice(anyLong(), anyInt(), anyInt());
+        mockMvc.perform(get("/api/v1/transaction-logs/1")
+                        .param("pageNumber", "0")
+                        .param("pageSize", "1")
+                        .param("count", "NONE")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.content[0].operation").value(Operation.DEPOSIT.toString()),
+                        jsonPath("$.metadata.totalElement").doesNotExist(),
+                        jsonPath("$.metadata.hasNext").value(true)
+                );
+    }
+
+    @Test
+    void findAccountTransactions_approximateCount() throws Exception {
+        List<TransactionLogDto> content = List.of(new TransactionLogDto(Operation.DEPOSIT, BigDecimal.TEN, null));
+        var slice = new SliceImpl<>(content, PageRequest.of(0, 1), true);
+        doReturn(slice).when(transactionLogService).findAccountTransactionSlice(1L, 0, 1);
+        doReturn(7L).when(approximateCounts).accountTransactions(1L);
+        mockMvc.perform(get("/api/v1/transaction-logs/1")
+                        .param("pageNumber", "0")
+                        .param("pageSize", "1")
+                        .param("count", "APPROXIMATE")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.metadata.totalElement").value(7),
+                        jsonPath("$.metadata.hasNext").value(true)
+                );
+    }
+
+    @Test
+    void exportAccountTransactions_csv() throws Exception {
+        StreamingResponseBody body = out -> out.write("operation,amount,dateTime\n".getBytes());
+        doReturn(body).when(exportService)
+                .exportAccountTransactions(1L, ExportFormat.CSV);
+        MvcResult result = mockMvc.perform(get("/api/v1/transaction-logs/1/export")
+                        .param("format", "CSV"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentType("text/csv"),
+                        header().string("Content-Disposition", "attachment; filename=\"account-1-transactions.csv\""),
+                        content().string("operation,amount,dateTime\n")
                 );
     }
 
+    @Test
+    void exportAccountTransactions_accountNotFound() throws Exception {
+        doThrow(AccountNotFoundException.class)
+                .when(exportService).exportAccountTransactions(anyLong(), any(ExportFormat.class));
+        mockMvc.perform(get("/api/v1/transaction-logs/1/export"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void findAccountTransactions_accountNotFound() throws Exception {
         doThrow(AccountNotFoundException.class)
@@ -74,4 +156,43 @@ class TransactionLogControllerTest {
                 .andExpect(status().isNotFound());
     }
 
-}
\ No newline at end of file
+    @Test
+    void scrollAccountTransactions_success() throws Exception {
+        LocalDateTime dateTime = LocalDateTime.of(2023, 1, 1, 10, 0);
+        var response = new CursorPageResponse<>(List.of(new TransactionLogDto(Operation.DEPOSIT, BigDecimal.TEN, dateTime)),
+                "next");
+        doReturn(response).when(transactionLogService).scrollAccountTransactions(1L, "current", 1);
+        mockMvc.perform(get("/api/v1/transaction-logs/1/scroll")
+                        .param("cursor", "current")
+                        .param("pageSize", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.content[0].operation").value(Operation.DEPOSIT.toString()),
+                        jsonPath("$.content[0].dateTime").value(dateTime.format(ISO_LOCAL_DATE_TIME)),
+                        jsonPath("$.nextCursor").value("next")
+                );
+    }
+
+    @Test
+    void scrollAccountTransactions_invalidCursor() throws Exception {
+        doThrow(InvalidCursorException.class)
+                .when(transactionLogService).scrollAccountTransactions(anyLong(), anyString(), anyInt());
+        mockMvc.perform(get("/api/v1/transaction-logs/1/scroll")
+                        .param("cursor", "broken")
+                        .param("pageSize", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "-1", "1001", "2147483647"})
+    void scrollAccountTransactions_invalidPageSize(String pageSize) throws Exception {
+        mockMvc.perform(get("/api/v1/transaction-logs/1/scroll")
+                        .param("pageSize", pageSize)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(transactionLogService);
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.kamko.bankdemo.jfr;
+
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.account_operation.TransferRequest;
+import com.kamko.bankdemo.exception.WrongPinException;
+import com.kamko.bankdemo.service.AccountService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class FlightRecorderAspectTest {
+
+    @TempDir
+    private Path dir;
+
+    private final AccountService target = mock(AccountService.class);
+    private AccountService accountService;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(new FlightRecorderAspect());
+        accountService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void record_emitsMoneyOperationsWithOutcome() throws IOException {
+        doThrow(new WrongPinException(1L)).when(target).transfer(any(TransferRequest.class));
+        List<RecordedEvent> events = record(() -> {
+            accountService.deposit(new DepositRequest(2L, BigDecimal.TEN));
+            assertThatExceptionOfType(WrongPinException.class)
+                    .isThrownBy(() -> accountService.transfer(new TransferRequest(1L, 2L, BigDecimal.ONE, "1112")));
+            accountService.count();
+        });
+
+        assertThat(events).extracting(event -> event.getString("operation"), event -> event.getLong("fromAccountId"),
+                        event -> event.getLong("toAccountId"), event -> event.getDouble("amount"),
+                        event -> event.getString("outcome"))
+                .containsExactly(
+                        tuple("deposit", 0L, 2L, 10.0, "ok"),
+                        tuple("transfer", 1L, 2L, 1.0, "wrong_pin")
+                );
+    }
+
+    private List<RecordedEvent> record(Runnable operations) throws IOException {
+        Path file = dir.resolve("operations.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(AccountOperationEvent.class);
+            recording.start();
+            operations.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(AccountOperationEvent.NAME))
+                .toList();
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.kamko.bankdemo.journal;
+
+import com.kamko.bankdemo.entity.Operation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class TransactionLogJournalTest {
+
+    private static final LocalDateTime DATE_TIME = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void readAll_returnsAppendedEventsAfterReopen() throws IOException {
+        Path file = dir.resolve("journal");
+        List<TransactionLogEvent> events = List.of(
+                new TransactionLogEvent(1, 1L, Operation.WITHDRAW, new BigDecimal("10.50"), DATE_TIME),
+                new TransactionLogEvent(2, 2L, Operation.DEPOSIT, new BigDecimal("10.50"), DATE_TIME)
+        );
+        try (TransactionLogJournal journal = new TransactionLogJournal(file)) {
+            journal.append(events);
+        }
+        try (TransactionLogJournal journal = new TransactionLogJournal(file)) {
+            assertThat(journal.readAll()).isEqualTo(events);
+        }
+    }
+
+    @Test
+    void readAll_discardsTornTail() throws IOException {
+        Path file = dir.resolve("journal");
+        TransactionLogEvent event = new TransactionLogEvent(1, 1L, Operation.DEPOSIT, BigDecimal.TEN, DATE_TIME);
+        try (TransactionLogJournal journal = new TransactionLogJournal(file)) {
+            journal.append(List.of(event));
+        }
+        String torn = TransactionLogJournal.encode(event.withSequence(2));
+        Files.writeString(file, torn.substring(0, torn.length() - 3), StandardOpenOption.APPEND);
+
+        try (TransactionLogJournal journal = new TransactionLogJournal(file)) {
+            List<TransactionLogEvent> actual = journal.readAll();
+            TransactionLogEvent next = event.withSequence(3);
+            journal.append(List.of(next));
+            assertAll(
+                    () -> assertThat(actual).containsExactly(event),
+                    () -> assertThat(journal.readAll()).containsExactly(event, next)
+            );
+        }
+    }
+
+    @Test
+    void decode_rejectsChecksumMismatch() {
+        TransactionLogEvent event = new TransactionLogEvent(1, 1L, Operation.DEPOSIT, BigDecimal.TEN, DATE_TIME);
+        String line = TransactionLogJournal.encode(event).replace("|10|", "|99|");
+        assertThat(TransactionLogJournal.decode(line)).isNull();
+    }
+
+    @Test
+    void truncate_removesEverything() throws IOException {
+        Path file = dir.resolve("journal");
+        try (TransactionLogJournal journal = new TransactionLogJournal(file)) {
+            journal.append(List.of(new TransactionLogEvent(1, 1L, Operation.DEPOSIT, BigDecimal.TEN, DATE_TIME)));
+            journal.truncate();
+            assertAll(
+                    () -> assertThat(journal.readAll()).isEmpty(),
+                    () -> assertThat(Files.size(file)).isZero()
+            );
+        }
+    }
+
+}
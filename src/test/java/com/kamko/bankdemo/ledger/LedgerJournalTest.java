@@ -0,0 +1,69 @@
+package com.kamko.bankdemo.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class LedgerJournalTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void readAll_returnsAppendedCommandsAfterReopen() throws IOException {
+        Path file = dir.resolve("journal");
+        List<LedgerCommand> commands = List.of(
+                new LedgerCommand.Open(1L, "salary | savings", new BigDecimal("0.00")),
+                new LedgerCommand.Create(4L, "new", new BigDecimal("0.00")),
+                new LedgerCommand.Deposit(1L, new BigDecimal("100.00")),
+                new LedgerCommand.Withdraw(1L, new BigDecimal("10.50")),
+                new LedgerCommand.Payout("payout", 1L, true, List.of(
+                        new LedgerCommand.Transfer(2L, new BigDecimal("1.00")),
+                        new LedgerCommand.Transfer(3L, new BigDecimal("2.00")))),
+                new LedgerCommand.Credit("payout:0", 2L, new BigDecimal("1.00"))
+        );
+        try (LedgerJournal journal = new LedgerJournal(file)) {
+            journal.append(commands);
+        }
+        try (LedgerJournal journal = new LedgerJournal(file)) {
+            assertThat(journal.readAll()).isEqualTo(commands);
+        }
+    }
+
+    @Test
+    void readAll_discardsTornTail() throws IOException {
+        Path file = dir.resolve("journal");
+        LedgerCommand deposit = new LedgerCommand.Deposit(1L, BigDecimal.TEN);
+        try (LedgerJournal journal = new LedgerJournal(file)) {
+            journal.append(List.of(deposit));
+        }
+        String torn = LedgerJournal.encode(new LedgerCommand.Withdraw(1L, BigDecimal.ONE));
+        Files.writeString(file, torn.substring(0, torn.length() - 3), StandardOpenOption.APPEND);
+
+        try (LedgerJournal journal = new LedgerJournal(file)) {
+            List<LedgerCommand> actual = journal.readAll();
+            LedgerCommand next = new LedgerCommand.Deposit(2L, BigDecimal.ONE);
+            journal.append(List.of(next));
+            assertAll(
+                    () -> assertThat(actual).containsExactly(deposit),
+                    () -> assertThat(journal.readAll()).containsExactly(deposit, next)
+            );
+        }
+    }
+
+    @Test
+    void decode_rejectsChecksumMismatch() {
+        String line = LedgerJournal.encode(new LedgerCommand.Deposit(1L, BigDecimal.TEN)).replace("|10|", "|99|");
+        assertThat(LedgerJournal.decode(line)).isNull();
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.kamko.bankdemo.metrics;
+
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.account_operation.TransferRequest;
+import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.kamko.bankdemo.exception.NotEnoughFundsException;
+import com.kamko.bankdemo.exception.WrongPinException;
+import com.kamko.bankdemo.service.AccountService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class ServiceMetricsAspectTest {
+
+    private static final TransferRequest TRANSFER = new TransferRequest(1L, 2L, BigDecimal.TEN, "1111");
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AccountService target = mock(AccountService.class);
+    private AccountService accountService;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(new ServiceMetricsAspect(meterRegistry));
+        accountService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void time_recordsSuccessAsOk() {
+        accountService.deposit(new DepositRequest(1L, BigDecimal.TEN));
+        accountService.count();
+        assertAll(
+                () -> assertThat(count("deposit", "ok")).isEqualTo(1),
+                () -> assertThat(count("count", "ok")).isEqualTo(1)
+        );
+    }
+
+    @Test
+    void time_tagsFailuresByOutcome() {
+        transferFailsWith(new AccountNotFoundException(2L));
+        transferFailsWith(new NotEnoughFundsException(1L, BigDecimal.ONE, BigDecimal.TEN));
+        transferFailsWith(new WrongPinException(1L));
+        transferFailsWith(new OptimisticLockingFailureException("conflict"));
+        transferFailsWith(new IllegalStateException("broken"));
+        assertAll(
+                () -> assertThat(count("transfer", "not_found")).isEqualTo(1),
+                () -> assertThat(count("transfer", "insufficient_funds")).isEqualTo(1),
+                () -> assertThat(count("transfer", "wrong_pin")).isEqualTo(1),
+                () -> assertThat(count("transfer", "conflict")).isEqualTo(1),
+                () -> assertThat(count("transfer", "error")).isEqualTo(1)
+        );
+    }
+
+    private void transferFailsWith(RuntimeException exception) {
+        doThrow(exception).when(target).transfer(any(TransferRequest.class));
+        assertThatExceptionOfType(exception.getClass())
+                .isThrownBy(() -> accountService.transfer(TRANSFER));
+    }
+
+    private long count(String method, String outcome) {
+        return meterRegistry.get(ServiceMetricsAspect.TIMER)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.kamko.bankdemo.repo;
+
+import com.kamko.bankdemo.entity.Account;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:sequence-migration")
+class SequenceMigrationTestIT {
+
+    @Autowired
+    private SpringLiquibase liquibase;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Test
+    void migration_movesSequencesPastExistingIds() throws Exception {
+        // rows written while ids still came from identity columns, before the sequences were moved
+        jdbcTemplate.update("INSERT INTO account (id, name, pin, balance) VALUES (500, 'legacy', 'pin', 0)");
+        jdbcTemplate.update("""
+                INSERT INTO transaction_log (id, operation, amount, account_id, date_time)
+                VALUES (700, 'DEPOSIT', 1, 500, CURRENT_TIMESTAMP)
+                """);
+        jdbcTemplate.update("DELETE FROM databasechangelog WHERE filename LIKE '%db.changelog-sequence-1.1.sql'");
+
+        liquibase.afterPropertiesSet();
+
+        Account account = new Account();
+        account.setName("new");
+        account.setPin("pin");
+        account.setBalance(BigDecimal.ZERO);
+        assertAll(
+                () -> assertThat(accountRepo.save(account).getId()).isGreaterThan(500L),
+                () -> assertThat(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR transaction_log_seq", Long.class))
+                        .isGreaterThan(700L)
+        );
+    }
+
+}
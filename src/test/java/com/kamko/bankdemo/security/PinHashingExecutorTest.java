@@ -0,0 +1,71 @@
+package com.kamko.bankdemo.security;
+
+import com.kamko.bankdemo.config.PinSecurityProperties;
+import com.kamko.bankdemo.exception.PinHashingOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class PinHashingExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PinHashingExecutor hashingExecutor = new PinHashingExecutor(
+            new PinSecurityProperties(null, null, new PinSecurityProperties.Hashing(1, 1)), meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        hashingExecutor.destroy();
+    }
+
+    @Test
+    void execute_success() {
+        assertAll(
+                () -> assertThat(hashingExecutor.execute(PinHashingExecutor.ENCODE, () -> "hash")).isEqualTo("hash"),
+                () -> assertThat(meterRegistry.get("pin.hashing.duration").timer().count()).isEqualTo(1)
+        );
+    }
+
+    @Test
+    void execute_rejectedWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() ->
+                hashingExecutor.execute(PinHashingExecutor.MATCHES, () -> {
+                    started.countDown();
+                    await(release);
+                    return true;
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() ->
+                hashingExecutor.execute(PinHashingExecutor.MATCHES, () -> true));
+        while (meterRegistry.get("executor.queued").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThatExceptionOfType(PinHashingOverloadedException.class)
+                .isThrownBy(() -> hashingExecutor.execute(PinHashingExecutor.MATCHES, () -> true));
+        release.countDown();
+        assertAll(
+                () -> assertThat(running.get(5, TimeUnit.SECONDS)).isTrue(),
+                () -> assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue(),
+                () -> assertThat(meterRegistry.get("pin.hashing.rejected").counter().count()).isEqualTo(1)
+        );
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.kamko.bankdemo.security;
+
+import com.kamko.bankdemo.config.PinSecurityProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class PinVerificationCacheTest {
+
+    private static final String PIN = "1111";
+    private static final String ENCODED_PIN = "$2a$10$encoded";
+
+    @Test
+    void markVerified_matchesOnlySamePinAndHash() {
+        PinVerificationCache cache = createCache(true);
+        cache.markVerified(1L, PIN, ENCODED_PIN);
+        assertAll(
+                () -> assertThat(cache.isVerified(1L, PIN, ENCODED_PIN)).isTrue(),
+                () -> assertThat(cache.isVerified(1L, "1112", ENCODED_PIN)).isFalse(),
+                () -> assertThat(cache.isVerified(1L, PIN, "$2a$10$changed")).isFalse(),
+                () -> assertThat(cache.isVerified(2L, PIN, ENCODED_PIN)).isFalse()
+        );
+    }
+
+    @Test
+    void disabled_neverVerified() {
+        PinVerificationCache cache = createCache(false);
+        cache.markVerified(1L, PIN, ENCODED_PIN);
+        assertThat(cache.isVerified(1L, PIN, ENCODED_PIN)).isFalse();
+    }
+
+    private PinVerificationCache createCache(boolean enabled) {
+        return new PinVerificationCache(
+                new PinSecurityProperties(null, new PinSecurityProperties.Cache(enabled, 100, Duration.ofMinutes(1)), null));
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.kamko.bankdemo.service;
+
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.account_operation.TransferRequest;
+import com.kamko.bankdemo.entity.Account;
+import com.kamko.bankdemo.entity.TransactionLog;
+import com.kamko.bankdemo.exception.NotEnoughFundsException;
+import com.kamko.bankdemo.repo.AccountRepo;
+import com.kamko.bankdemo.repo.TransactionLogRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest
+class AccountConcurrencyTestIT {
+
+    private static final int HOT_ACCOUNTS = 3;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 15;
+    private static final int DEPOSITS_PER_THREAD = 25;
+    private static final String PIN = "1111";
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(1_000);
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private SecurityService securityService;
+    @Autowired
+    private AccountRepo accountRepo;
+    @Autowired
+    private TransactionLogRepo transactionRepo;
+
+    private final List<Long> accountIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        String encodedPin = securityService.encode(PIN);
+        for (int i = 0; i < HOT_ACCOUNTS; i++) {
+            Account account = new Account();
+            account.setName("hot " + i);
+            account.setPin(encodedPin);
+            account.setBalance(INITIAL_BALANCE);
+            accountIds.add(accountRepo.save(account).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepo.deleteAll(accountTransactions());
+        accountRepo.deleteAllById(accountIds);
+    }
+
+    @Test
+    void concurrentTransfers_preserveTotalBalance() throws Exception {
+        AtomicInteger completed = new AtomicInteger();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(HOT_ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(HOT_ACCOUNTS - 1)) % HOT_ACCOUNTS;
+                    BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 200));
+                    try {
+                        accountService.transfer(new TransferRequest(accountIds.get(from), accountIds.get(to), amount, PIN));
+                        completed.incrementAndGet();
+                    } catch (NotEnoughFundsException ignored) {
+                        // a legitimate outcome for a hot account, the balance must stay untouched
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        BigDecimal total = accountRepo.findAllById(accountIds).stream()
+                .map(Account::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertAll(
+                () -> assertThat(failures).isEmpty(),
+                () -> assertThat(completed.get()).isPositive(),
+                () -> assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(HOT_ACCOUNTS))),
+                () -> assertThat(accountTransactions()).hasSize(completed.get() * 2)
+        );
+    }
+
+    @Test
+    void concurrentDeposits_loseNoUpdates() throws Exception {
+        Long accountId = accountIds.get(0);
+        LongAdder deposited = new LongAdder();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                start.await();
+                for (int i = 0; i < DEPOSITS_PER_THREAD; i++) {
+                    int amount = random.nextInt(1, 100);
+                    try {
+                        accountService.deposit(new DepositRequest(accountId, BigDecimal.valueOf(amount)));
+                        deposited.add(amount);
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        BigDecimal balance = accountRepo.findById(accountId).orElseThrow().getBalance();
+        assertAll(
+                () -> assertThat(failures).isEmpty(),
+                () -> assertThat(balance).isEqualByComparingTo(INITIAL_BALANCE.add(BigDecimal.valueOf(deposited.sum())))
+        );
+    }
+
+    private List<TransactionLog> accountTransactions() {
+        return transactionRepo.findAll().stream()
+                .filter(transaction -> accountIds.contains(transaction.getAccount().getId()))
+                .toList();
+    }
+
+}
@@ -1,8 +1,13 @@
 package com.kamko.bankdemo.service;
 
+import com.kamko.bankdemo.cache.AccountBalanceCache;
 import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
 import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
 import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferItem;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferMode;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferRequest;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferResponse;
 import com.kamko.bankdemo.dto.account_operation.TransferRequest;
 import com.kamko.bankdemo.entity.Account;
 import com.kamko.bankdemo.exception.AccountNotFoundException;
@@ -16,15 +21,24 @@ import com.kamko.bankdemo.service.impl.SecurityServiceImpl;
 import com.kamko.bankdemo.service.impl.TransactionLogServiceImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 
 import static com.kamko.bankdemo.data.PreparedData.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,6 +46,7 @@ import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,19 +60,47 @@ class AccountServiceTest {
     private SecurityServiceImpl securityService;
     @Mock
     private TransactionLogServiceImpl transactionService;
+    @Mock
+    private AccountBalanceCache balanceCache;
     @InjectMocks
     private AccountServiceImpl accountService;
 
     @Test
     void findAll_success() {
-        doReturn(new PageImpl<>(PAGE_CONTENT)).when(accountRepo).findAll(any(Pageable.class));
-        doReturn(NAME_BALANCE_ACCOUNT_RESPONSE).when(accountMapper).toNameBalance(any(Account.class));
+        doReturn(new PageImpl<>(List.of(NAME_BALANCE_ACCOUNT_RESPONSE)))
+                .when(accountRepo).findPageOfNameBalance(any(Pageable.class));
         Page<AccountNameBalanceDto> actualResult = accountService.findAll(0, 2);
         assertAll(
                 () -> assertThat(actualResult.getContent()).isNotEmpty().containsExactly(NAME_BALANCE_ACCOUNT_RESPONSE),
                 () -> assertThat(actualResult.getTotalElements()).isEqualTo(1),
-                () -> verify(accountRepo, only()).findAll(any(Pageable.class)),
-                () -> verify(accountMapper, only()).toNameBalance(any(Account.class))
+                () -> verify(accountRepo, only()).findPageOfNameBalance(PageRequest.of(0, 2)),
+                () -> verifyNoInteractions(accountMapper)
+        );
+    }
+
+    @Test
+    void findSlice_success() {
+        doReturn(new SliceImpl<>(List.of(NAME_BALANCE_ACCOUNT_RESPONSE), PageRequest.of(0, 1), true))
+                .when(accountRepo).findSliceOfNameBalance(any(Pageable.class));
+        Slice<AccountNameBalanceDto> actualResult = accountService.findSlice(0, 1);
+        assertAll(
+                () -> assertThat(actualResult.getContent()).containsExactly(NAME_BALANCE_ACCOUNT_RESPONSE),
+                () -> assertThat(actualResult.hasNext()).isTrue(),
+                () -> verify(accountRepo, only()).findSliceOfNameBalance(PageRequest.of(0, 1))
+        );
+    }
+
+    @Test
+    void findById_loadsThroughCache() {
+        doAnswer(invocation -> invocation.<Function<Long, Optional<AccountIdNameBalanceDto>>>getArgument(1)
+                .apply(invocation.getArgument(0)))
+                .when(balanceCache).get(anyLong(), any());
+        doReturn(Optional.of(ACCOUNT_RESPONSE)).when(accountRepo).findIdNameBalanceById(ACCOUNT.getId());
+        doReturn(Optional.empty()).when(accountRepo).findIdNameBalanceById(2L);
+        assertAll(
+                () -> assertThat(accountService.findById(ACCOUNT.getId())).isEqualTo(ACCOUNT_RESPONSE),
+                () -> assertThatExceptionOfType(AccountNotFoundException.class)
+                        .isThrownBy(() -> accountService.findById(2L))
         );
     }
 
@@ -79,45 +122,169 @@ class AccountServiceTest {
 
     @Test
     void accountNotFoundException() {
-        doReturn(Optional.empty()).when(accountRepo).findById(anyLong());
+        doReturn(0).when(accountRepo).increaseBalance(anyLong(), any(BigDecimal.class));
+        doReturn(Optional.empty()).when(accountRepo).findPinById(anyLong());
         assertAll(
                 () -> assertThatExceptionOfType(AccountNotFoundException.class)
                         .isThrownBy(() -> accountService.deposit(DEPOSIT_REQUEST)),
                 () -> assertThatExceptionOfType(AccountNotFoundException.class)
-                        .isThrownBy(() -> accountService.withdraw(WITHDRAW_REQUEST))
+                        .isThrownBy(() -> accountService.withdraw(WITHDRAW_REQUEST)),
+                () -> verifyNoInteractions(transactionService)
         );
     }
 
     @Test
     void deposit_success() {
-        doReturn(Optional.of(ACCOUNT)).when(accountRepo).findById(anyLong());
-        doReturn(ACCOUNT).when(accountRepo).saveAndFlush(any(Account.class));
+        doReturn(1).when(accountRepo).increaseBalance(anyLong(), any(BigDecimal.class));
+        doReturn(ACCOUNT).when(accountRepo).getReferenceById(ACCOUNT.getId());
         AccountIdNameBalanceDto result =
                 new AccountIdNameBalanceDto(ACCOUNT.getId(), ACCOUNT.getName(),
                         ACCOUNT.getBalance().add(DEPOSIT_REQUEST.amount()));
-        doReturn(result).when(accountMapper).toIdNameBalance(any(Account.class));
+        doReturn(Optional.of(result)).when(accountRepo).findIdNameBalanceById(ACCOUNT.getId());
+        BigDecimal amount = DEPOSIT_REQUEST.amount().setScale(2);
         assertAll(
                 () -> assertThat(accountService.deposit(DEPOSIT_REQUEST)).isEqualTo(result),
-                () -> verify(accountRepo, times(1)).findById(anyLong()),
-                () -> verify(accountRepo, times(1)).saveAndFlush(any(Account.class)),
-                () -> verify(accountMapper, only()).toIdNameBalance(any(Account.class))
+                () -> verify(accountRepo, times(1)).increaseBalance(ACCOUNT.getId(), amount),
+                () -> verify(accountRepo, never()).findById(anyLong()),
+                () -> verify(transactionService, only()).logDeposit(ACCOUNT, amount),
+                () -> verify(balanceCache, only()).evict(List.of(ACCOUNT.getId()))
         );
     }
 
     @Test
     void withdraw_success() {
-        doReturn(Optional.of(ACCOUNT)).when(accountRepo).findById(anyLong());
-        doReturn(ACCOUNT).when(accountRepo).saveAndFlush(any(Account.class));
+        doReturn(Optional.of("encoded")).when(accountRepo).findPinById(ACCOUNT.getId());
+        doReturn(1).when(accountRepo).reduceBalance(anyLong(), any(BigDecimal.class));
+        doReturn(ACCOUNT).when(accountRepo).getReferenceById(ACCOUNT.getId());
         AccountIdNameBalanceDto result =
                 new AccountIdNameBalanceDto(ACCOUNT.getId(), ACCOUNT.getName(),
                         ACCOUNT.getBalance().subtract(WITHDRAW_REQUEST.amount()));
-        doReturn(result).when(accountMapper).toIdNameBalance(any(Account.class));
+        doReturn(Optional.of(result)).when(accountRepo).findIdNameBalanceById(ACCOUNT.getId());
+        BigDecimal amount = WITHDRAW_REQUEST.amount().setScale(2);
         assertAll(
                 () -> assertThat(accountService.withdraw(WITHDRAW_REQUEST)).isEqualTo(result),
-                () -> verify(accountRepo, times(1)).findById(anyLong()),
-                () -> verify(securityService, only()).verifyPin(anyString(), anyString(), anyLong()),
-                () -> verify(accountRepo, times(1)).saveAndFlush(any(Account.class)),
-                () -> verify(accountMapper, only()).toIdNameBalance(any(Account.class))
+                () -> verify(securityService, only()).verifyPin(WITHDRAW_REQUEST.pin(), "encoded", ACCOUNT.getId()),
+                () -> verify(accountRepo, times(1)).reduceBalance(ACCOUNT.getId(), amount),
+                () -> verify(transactionService, only()).logWithdraw(ACCOUNT, amount),
+                () -> verify(balanceCache, only()).evict(List.of(ACCOUNT.getId()))
+        );
+    }
+
+    @Test
+    void withdraw_outdatedPinIsRehashed() {
+        doReturn(Optional.of("outdated")).when(accountRepo).findPinById(ACCOUNT.getId());
+        doReturn(Optional.of("upgraded")).when(securityService).verifyPin(WITHDRAW_REQUEST.pin(), "outdated", ACCOUNT.getId());
+        doReturn(1).when(accountRepo).reduceBalance(anyLong(), any(BigDecimal.class));
+        doReturn(Optional.of(ACCOUNT_RESPONSE)).when(accountRepo).findIdNameBalanceById(ACCOUNT.getId());
+        assertAll(
+                () -> assertThat(accountService.withdraw(WITHDRAW_REQUEST)).isEqualTo(ACCOUNT_RESPONSE),
+                () -> verify(accountRepo, times(1)).updatePin(ACCOUNT.getId(), "outdated", "upgraded")
+        );
+    }
+
+    @Test
+    void transfer_success() {
+        Long fromAccountId = 2L;
+        Long toAccountId = 1L;
+        BigDecimal amount = BigDecimal.TEN.setScale(2);
+        TransferRequest transferRequest = new TransferRequest(fromAccountId, toAccountId, BigDecimal.TEN, "1111");
+        doReturn(Optional.of("encoded")).when(accountRepo).findPinById(fromAccountId);
+        doReturn(1).when(accountRepo).reduceBalance(fromAccountId, amount);
+        doReturn(1).when(accountRepo).increaseBalance(toAccountId, amount);
+        accountService.transfer(transferRequest);
+        InOrder updateOrder = inOrder(accountRepo);
+        assertAll(
+                () -> verify(securityService, only()).verifyPin("1111", "encoded", fromAccountId),
+                () -> updateOrder.verify(accountRepo).increaseBalance(toAccountId, amount),
+                () -> updateOrder.verify(accountRepo).reduceBalance(fromAccountId, amount),
+                () -> verify(transactionService, only()).logTransfer(any(), any(), eq(amount)),
+                () -> verify(balanceCache, only()).evict(List.of(fromAccountId, toAccountId))
+        );
+    }
+
+    @Test
+    void transfer_notEnoughFundsException() {
+        Long fromAccountId = 1L;
+        Long toAccountId = 2L;
+        TransferRequest transferRequest = new TransferRequest(fromAccountId, toAccountId, BigDecimal.TEN, "1111");
+        doReturn(Optional.of("encoded")).when(accountRepo).findPinById(fromAccountId);
+        doReturn(0).when(accountRepo).reduceBalance(anyLong(), any(BigDecimal.class));
+        doReturn(Optional.of(BigDecimal.ONE)).when(accountRepo).findBalanceById(fromAccountId);
+        assertAll(
+                () -> assertThatExceptionOfType(NotEnoughFundsException.class)
+                        .isThrownBy(() -> accountService.transfer(transferRequest)),
+                () -> verify(accountRepo, never()).increaseBalance(anyLong(), any(BigDecimal.class)),
+                () -> verifyNoInteractions(transactionService)
+        );
+    }
+
+    @Test
+    void transferBatch_success() {
+        Long fromAccountId = 2L;
+        BatchTransferRequest request = new BatchTransferRequest(fromAccountId, "1111", null, List.of(
+                new BatchTransferItem(3L, BigDecimal.TEN),
+                new BatchTransferItem(1L, BigDecimal.ONE),
+                new BatchTransferItem(3L, BigDecimal.ONE)
+        ));
+        doReturn(Optional.of("encoded")).when(accountRepo).findPinById(fromAccountId);
+        doReturn(Map.of(1L, BigDecimal.ZERO, 2L, BigDecimal.valueOf(100), 3L, BigDecimal.ZERO))
+                .when(accountRepo).lockBalances(Set.of(1L, 2L, 3L));
+        doReturn(1).when(accountRepo).reduceBalance(fromAccountId, new BigDecimal("12.00"));
+        BatchTransferResponse actual = accountService.transferBatch(request);
+        assertAll(
+                () -> assertThat(actual.balance()).isEqualByComparingTo("88"),
+                () -> assertThat(actual.results()).extracting(BatchTransferResponse.ItemResult::status)
+                        .containsOnly(BatchTransferResponse.Status.COMPLETED),
+                () -> verify(securityService, only()).verifyPin("1111", "encoded", fromAccountId),
+                () -> verify(accountRepo).increaseBalances(new TreeMap<>(Map.of(
+                        1L, new BigDecimal("1.00"), 3L, new BigDecimal("11.00")))),
+                () -> verify(transactionService, only()).logBatchTransfer(any(), anyList())
+        );
+    }
+
+    @Test
+    void transferBatch_allOrNothingRejectsWholeBatch() {
+        Long fromAccountId = 1L;
+        BatchTransferRequest request = new BatchTransferRequest(fromAccountId, "1111",
+                BatchTransferMode.ALL_OR_NOTHING, List.of(
+                new BatchTransferItem(2L, BigDecimal.TEN),
+                new BatchTransferItem(404L, BigDecimal.ONE)
+        ));
+        doReturn(Optional.of("encoded")).when(accountRepo).findPinById(fromAccountId);
+        doReturn(Map.of(1L, BigDecimal.valueOf(100), 2L, BigDecimal.ZERO)).when(accountRepo).lockBalances(anySet());
+        assertAll(
+                () -> assertThatExceptionOfType(AccountNotFoundException.class)
+                        .isThrownBy(() -> accountService.transferBatch(request)),
+                () -> verify(accountRepo, never()).reduceBalance(anyLong(), any(BigDecimal.class)),
+                () -> verify(accountRepo, never()).increaseBalances(any()),
+                () -> verifyNoInteractions(transactionService)
+        );
+    }
+
+    @Test
+    void transferBatch_bestEffortSkipsFailedItems() {
+        Long fromAccountId = 1L;
+        BatchTransferRequest request = new BatchTransferRequest(fromAccountId, "1111",
+                BatchTransferMode.BEST_EFFORT, List.of(
+                new BatchTransferItem(2L, BigDecimal.valueOf(60)),
+                new BatchTransferItem(404L, BigDecimal.ONE),
+                new BatchTransferItem(1L, BigDecimal.ONE),
+                new BatchTransferItem(3L, BigDecimal.valueOf(60)),
+                new BatchTransferItem(3L, BigDecimal.valueOf(40))
+        ));
+        doReturn(Optional.of("encoded")).when(accountRepo).findPinById(fromAccountId);
+        doReturn(Map.of(1L, BigDecimal.valueOf(100), 2L, BigDecimal.ZERO, 3L, BigDecimal.ZERO))
+                .when(accountRepo).lockBalances(anySet());
+        doReturn(1).when(accountRepo).reduceBalance(fromAccountId, new BigDecimal("100.00"));
+        BatchTransferResponse actual = accountService.transferBatch(request);
+        assertAll(
+                () -> assertThat(actual.balance()).isEqualByComparingTo("0"),
+                () -> assertThat(actual.results()).extracting(BatchTransferResponse.ItemResult::status).containsExactly(
+                        BatchTransferResponse.Status.COMPLETED, BatchTransferResponse.Status.FAILED,
+                        BatchTransferResponse.Status.FAILED, BatchTransferResponse.Status.FAILED,
+                        BatchTransferResponse.Status.COMPLETED),
+                () -> verify(accountRepo).increaseBalances(new TreeMap<>(Map.of(
+                        2L, new BigDecimal("60.00"), 3L, new BigDecimal("40.00"))))
         );
     }
 
@@ -131,7 +298,9 @@ class AccountServiceTest {
 
     @Test
     void notEnoughFundsException() {
-        doReturn(Optional.of(ACCOUNT)).when(accountRepo).findById(anyLong());
+        doReturn(Optional.of("encoded")).when(accountRepo).findPinById(anyLong());
+        doReturn(0).when(accountRepo).reduceBalance(anyLong(), any(BigDecimal.class));
+        doReturn(Optional.of(ACCOUNT.getBalance())).when(accountRepo).findBalanceById(anyLong());
         assertThatExceptionOfType(NotEnoughFundsException.class)
                 .isThrownBy(() -> accountService.withdraw(WRONG_AMOUNT_WITHDRAW_REQUEST));
     }
@@ -3,6 +3,10 @@ package com.kamko.bankdemo.service;
 import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
 import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
 import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferItem;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferMode;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferRequest;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferResponse;
 import com.kamko.bankdemo.dto.account_operation.DepositRequest;
 import com.kamko.bankdemo.dto.account_operation.TransferRequest;
 import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
@@ -49,12 +53,28 @@ class AccountServiceTestIT {
         assertThat(actual.getContent()).isNotEmpty().isEqualTo(expected);
     }
 
+    @Test
+    void findById_successes() {
+        accountService.deposit(new DepositRequest(1L, BigDecimal.TEN));
+        AccountIdNameBalanceDto expected =
+                new AccountIdNameBalanceDto(1L, "first", BigDecimal.valueOf(1010).setScale(2, HALF_UP));
+        assertThat(accountService.findById(1L)).isEqualTo(expected);
+    }
+
+    @Test
+    void findById_accountNotFoundException() {
+        assertThatExceptionOfType(AccountNotFoundException.class)
+                .isThrownBy(() -> accountService.findById(100L));
+    }
+
     @Test
     void create_successes() {
         NewAccountDto newAccount = new NewAccountDto("name", "1234");
         AccountIdNameBalanceDto actual = accountService.create(newAccount);
-        AccountIdNameBalanceDto expected = new AccountIdNameBalanceDto(3L, "name", BigDecimal.ZERO);
-        assertThat(actual).isNotNull().isEqualTo(expected);
+        AccountIdNameBalanceDto expected = new AccountIdNameBalanceDto(null, "name", BigDecimal.ZERO);
+        assertThat(actual).isNotNull()
+                .usingRecursiveComparison().ignoringFields("id").isEqualTo(expected);
+        assertThat(actual.id()).isGreaterThanOrEqualTo(3L);
     }
 
     @Test
@@ -73,6 +93,13 @@ class AccountServiceTestIT {
         assertThat(actual).isNotNull().isEqualTo(expected);
     }
 
+    @Test
+    void withdraw_rehashesLegacyPin() {
+        WithdrawRequest withdrawRequest = new WithdrawRequest(1L, BigDecimal.TEN, "1111");
+        accountService.withdraw(withdrawRequest);
+        assertThat(accountRepo.findPinById(1L)).hasValueSatisfying(pin -> assertThat(pin).startsWith("{bcrypt}$2a$10$"));
+    }
+
     @Test
     void transfer_successes() {
         TransferRequest transferRequest = new TransferRequest(1L, 2L, BigDecimal.valueOf(100), "1111");
@@ -87,6 +114,39 @@ class AccountServiceTestIT {
         );
     }
 
+    @Test
+    void transferBatch_successes() {
+        BatchTransferRequest batchTransferRequest = new BatchTransferRequest(1L, "1111", BatchTransferMode.BEST_EFFORT,
+                List.of(
+                        new BatchTransferItem(2L, BigDecimal.valueOf(100)),
+                        new BatchTransferItem(404L, BigDecimal.ONE),
+                        new BatchTransferItem(2L, BigDecimal.valueOf(50))
+                ));
+        BatchTransferResponse actual = accountService.transferBatch(batchTransferRequest);
+        BigDecimal expectedBalanceFromAccount = BigDecimal.valueOf(850).setScale(2, HALF_UP);
+        BigDecimal expectedBalanceToAccount = BigDecimal.valueOf(650).setScale(2, HALF_UP);
+        assertAll(
+                () -> assertThat(actual.balance()).isEqualTo(expectedBalanceFromAccount),
+                () -> assertThat(actual.results()).extracting(BatchTransferResponse.ItemResult::status)
+                        .containsExactly(BatchTransferResponse.Status.COMPLETED, BatchTransferResponse.Status.FAILED,
+                                BatchTransferResponse.Status.COMPLETED),
+                () -> assertThat(accountRepo.findById(1L).orElseThrow().getBalance())
+                        .isEqualTo(expectedBalanceFromAccount),
+                () -> assertThat(accountRepo.findById(2L).orElseThrow().getBalance())
+                        .isEqualTo(expectedBalanceToAccount)
+        );
+    }
+
+    @Test
+    void transferBatch_allOrNothing_notEnoughFundsException() {
+        BatchTransferRequest batchTransferRequest = new BatchTransferRequest(1L, "1111", null, List.of(
+                new BatchTransferItem(2L, BigDecimal.valueOf(600)),
+                new BatchTransferItem(2L, BigDecimal.valueOf(600))
+        ));
+        assertThatExceptionOfType(NotEnoughFundsException.class)
+                .isThrownBy(() -> accountService.transferBatch(batchTransferRequest));
+    }
+
     @Test
     void accountNotFoundException() {
         Class<AccountNotFoundException> expectedException = AccountNotFoundException.class;
@@ -0,0 +1,222 @@
+package com.kamko.bankdemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kamko.bankdemo.config.IdempotencyProperties;
+import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
+import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
+import com.kamko.bankdemo.exception.IdempotencyKeyMismatchException;
+import com.kamko.bankdemo.exception.IdempotentRequestInProgressException;
+import com.kamko.bankdemo.exception.InvalidIdempotencyKeyException;
+import com.kamko.bankdemo.exception.NotEnoughFundsException;
+import com.kamko.bankdemo.repo.IdempotencyKeyRepo;
+import com.kamko.bankdemo.service.impl.IdempotencyServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final String KEY = "3f1c1b9e-4c52-4a8e-9d6f-0c1e2a7b5d10";
+    private static final WithdrawRequest REQUEST = new WithdrawRequest(1L, BigDecimal.TEN, "1111");
+    private static final AccountIdNameBalanceDto RESPONSE =
+            new AccountIdNameBalanceDto(1L, "first", BigDecimal.valueOf(990));
+
+    @Mock
+    private IdempotencyKeyRepo idempotencyKeyRepo;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private AccountService accountService;
+
+    private IdempotencyService idempotencyService;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = newService(true);
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void execute_withoutKey() {
+        AccountIdNameBalanceDto actual = withdraw(null, REQUEST);
+        assertAll(
+                () -> assertThat(actual).isEqualTo(RESPONSE),
+                () -> assertThat(executions).hasValue(1),
+                () -> verifyNoInteractions(idempotencyKeyRepo)
+        );
+    }
+
+    @Test
+    void execute_replaysFromCache() {
+        doReturn(true).when(idempotencyKeyRepo).claim(eq(KEY), anyString(), anyString(), any());
+        doReturn(true).when(idempotencyKeyRepo).complete(eq(KEY), anyString(), anyString());
+        AccountIdNameBalanceDto first = withdraw(KEY, REQUEST);
+        AccountIdNameBalanceDto replayed = withdraw(KEY, new WithdrawRequest(1L, BigDecimal.TEN, "9999"));
+        assertAll(
+                () -> assertThat(replayed).isEqualTo(first),
+                () -> assertThat(executions).hasValue(1),
+                () -> verify(idempotencyKeyRepo).claim(eq(KEY), anyString(), anyString(), any()),
+                () -> verify(idempotencyKeyRepo).complete(eq(KEY), anyString(), anyString()),
+                () -> verifyNoMoreInteractions(idempotencyKeyRepo)
+        );
+    }
+
+    @Test
+    void execute_replaysFromTableAfterRestart() throws Exception {
+        String fingerprint = fingerprintOf(REQUEST);
+        restart();
+        doReturn(false).when(idempotencyKeyRepo).claim(eq(KEY), eq(fingerprint), anyString(), any());
+        doReturn(Optional.of(new IdempotencyKeyRepo.StoredRequest(fingerprint,
+                new ObjectMapper().writeValueAsString(RESPONSE))))
+                .when(idempotencyKeyRepo).find(KEY);
+        AccountIdNameBalanceDto actual = withdraw(KEY, REQUEST);
+        assertAll(
+                () -> assertThat(actual).isEqualTo(RESPONSE),
+                () -> assertThat(executions).hasValue(0)
+        );
+    }
+
+    @Test
+    void execute_keyReusedForAnotherRequest() {
+        doReturn(true).when(idempotencyKeyRepo).claim(eq(KEY), anyString(), anyString(), any());
+        doReturn(true).when(idempotencyKeyRepo).complete(eq(KEY), anyString(), anyString());
+        withdraw(KEY, REQUEST);
+        WithdrawRequest otherRequest = new WithdrawRequest(1L, BigDecimal.ONE, "1111");
+        assertThatExceptionOfType(IdempotencyKeyMismatchException.class)
+                .isThrownBy(() -> withdraw(KEY, otherRequest));
+    }
+
+    @Test
+    void execute_requestInProgress() {
+        String fingerprint = fingerprintOf(REQUEST);
+        restart();
+        doReturn(false).when(idempotencyKeyRepo).claim(eq(KEY), eq(fingerprint), anyString(), any());
+        doReturn(Optional.of(new IdempotencyKeyRepo.StoredRequest(fingerprint, null)))
+                .when(idempotencyKeyRepo).find(KEY);
+        assertAll(
+                () -> assertThatExceptionOfType(IdempotentRequestInProgressException.class)
+                        .isThrownBy(() -> withdraw(KEY, REQUEST)),
+                () -> assertThat(executions).hasValue(0)
+        );
+    }
+
+    @Test
+    void execute_failedRequestReleasesKey() {
+        doReturn(true).when(idempotencyKeyRepo).claim(eq(KEY), anyString(), anyString(), any());
+        Supplier<AccountIdNameBalanceDto> failing = () -> {
+            throw new NotEnoughFundsException(1L, BigDecimal.ZERO, BigDecimal.TEN);
+        };
+        assertAll(
+                () -> assertThatExceptionOfType(NotEnoughFundsException.class)
+                        .isThrownBy(() -> idempotencyService.execute(KEY, "withdraw", REQUEST,
+                                AccountIdNameBalanceDto.class, failing)),
+                () -> verify(idempotencyKeyRepo).release(eq(KEY), anyString()),
+                () -> verify(idempotencyKeyRepo, never()).complete(anyString(), anyString(), anyString())
+        );
+    }
+
+    @Test
+    void execute_takesOverStaleClaim() {
+        String fingerprint = fingerprintOf(REQUEST);
+        restart();
+        claimLeftBehind(fingerprint);
+        doReturn(true).when(idempotencyKeyRepo).takeOver(eq(KEY), anyString(), any(), any());
+        doReturn(true).when(idempotencyKeyRepo).complete(eq(KEY), anyString(), anyString());
+        assertAll(
+                () -> assertThat(withdraw(KEY, REQUEST)).isEqualTo(RESPONSE),
+                () -> assertThat(executions).hasValue(1)
+        );
+    }
+
+    @Test
+    void execute_keepsStaleClaimWhenEngineCommitsElsewhere() {
+        String fingerprint = fingerprintOf(REQUEST);
+        restart();
+        idempotencyService = newService(false);
+        claimLeftBehind(fingerprint);
+        assertAll(
+                () -> assertThatExceptionOfType(IdempotentRequestInProgressException.class)
+                        .isThrownBy(() -> withdraw(KEY, REQUEST)),
+                () -> verify(idempotencyKeyRepo, never()).takeOver(anyString(), anyString(), any(), any()),
+                () -> assertThat(executions).hasValue(0)
+        );
+    }
+
+    @Test
+    void execute_rollsBackWhenClaimWasTakenOver() {
+        doReturn(true).when(idempotencyKeyRepo).claim(eq(KEY), anyString(), anyString(), any());
+        doReturn(false).when(idempotencyKeyRepo).complete(eq(KEY), anyString(), anyString());
+        assertAll(
+                () -> assertThatExceptionOfType(IdempotentRequestInProgressException.class)
+                        .isThrownBy(() -> withdraw(KEY, REQUEST)),
+                () -> verify(transactionManager).rollback(any()),
+                () -> verify(transactionManager, never()).commit(any()),
+                () -> verify(idempotencyKeyRepo).release(eq(KEY), anyString())
+        );
+    }
+
+    @Test
+    void execute_invalidKey() {
+        assertAll(
+                () -> assertThatExceptionOfType(InvalidIdempotencyKeyException.class)
+                        .isThrownBy(() -> withdraw(" ", REQUEST)),
+                () -> assertThatExceptionOfType(InvalidIdempotencyKeyException.class)
+                        .isThrownBy(() -> withdraw("k".repeat(256), REQUEST))
+        );
+    }
+
+    private String fingerprintOf(WithdrawRequest request) {
+        ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+        doReturn(true).when(idempotencyKeyRepo).claim(eq(KEY), fingerprint.capture(), anyString(), any());
+        doReturn(true).when(idempotencyKeyRepo).complete(eq(KEY), anyString(), anyString());
+        withdraw(KEY, request);
+        return fingerprint.getValue();
+    }
+
+    private void claimLeftBehind(String fingerprint) {
+        doReturn(false).when(idempotencyKeyRepo).claim(eq(KEY), eq(fingerprint), anyString(), any());
+        doReturn(Optional.of(new IdempotencyKeyRepo.StoredRequest(fingerprint, null)))
+                .when(idempotencyKeyRepo).find(KEY);
+    }
+
+    private IdempotencyService newService(boolean joinsCallerTransaction) {
+        doReturn(joinsCallerTransaction).when(accountService).joinsCallerTransaction();
+        return new IdempotencyServiceImpl(idempotencyKeyRepo, new ObjectMapper(),
+                new IdempotencyProperties(100, Duration.ofHours(1), Duration.ofSeconds(30), Duration.ofMinutes(1)),
+                new SimpleMeterRegistry(), transactionManager, accountService);
+    }
+
+    private void restart() {
+        reset(idempotencyKeyRepo);
+        setUp();
+    }
+
+    private AccountIdNameBalanceDto withdraw(String key, WithdrawRequest request) {
+        return idempotencyService.execute(key, "withdraw", request, AccountIdNameBalanceDto.class, () -> {
+            executions.incrementAndGet();
+            return RESPONSE;
+        });
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.kamko.bankdemo.service;
+
+import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
+import com.kamko.bankdemo.entity.Account;
+import com.kamko.bankdemo.repo.AccountRepo;
+import com.kamko.bankdemo.repo.IdempotencyKeyRepo;
+import com.kamko.bankdemo.service.impl.IdempotencyServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static java.math.RoundingMode.HALF_UP;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest
+@Transactional
+@Sql("classpath:script/data.sql")
+class IdempotencyServiceTestIT {
+
+    private static final String FINGERPRINT = "0".repeat(64);
+
+    @Autowired
+    private IdempotencyServiceImpl idempotencyService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountRepo accountRepo;
+    @Autowired
+    private IdempotencyKeyRepo idempotencyKeyRepo;
+
+    @Test
+    void execute_appliesRepeatedWithdrawOnce() {
+        String key = UUID.randomUUID().toString();
+        WithdrawRequest withdrawRequest = new WithdrawRequest(1L, BigDecimal.valueOf(100), "1111");
+        AccountIdNameBalanceDto first = withdraw(key, withdrawRequest);
+        AccountIdNameBalanceDto replayed = withdraw(key, withdrawRequest);
+        BigDecimal expectedBalance = BigDecimal.valueOf(900).setScale(2, HALF_UP);
+        assertAll(
+                () -> assertThat(replayed).isEqualTo(first),
+                () -> assertThat(accountRepo.findById(1L).orElseThrow().getBalance()).isEqualTo(expectedBalance),
+                () -> assertThat(idempotencyKeyRepo.find(key)).hasValueSatisfying(stored ->
+                        assertThat(stored.isCompleted()).isTrue())
+        );
+    }
+
+    @Test
+    void execute_releasesKeyOnOptimisticLockConflict() {
+        String key = UUID.randomUUID().toString();
+        DepositRequest depositRequest = new DepositRequest(1L, BigDecimal.TEN);
+        assertThatThrownBy(() -> idempotencyService.execute(key, "deposit", depositRequest,
+                AccountIdNameBalanceDto.class, () -> {
+                    Account stale = accountRepo.findById(1L).orElseThrow();
+                    accountService.deposit(depositRequest);
+                    stale.setName("stale");
+                    accountRepo.saveAndFlush(stale);
+                    return null;
+                }))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(idempotencyKeyRepo.find(key)).isEmpty();
+    }
+
+    @Test
+    void deleteExpiredKeys_removesOnlyExpired() {
+        idempotencyKeyRepo.claim("expired", FINGERPRINT, "a", LocalDateTime.now().minusDays(2));
+        idempotencyKeyRepo.claim("fresh", FINGERPRINT, "b", LocalDateTime.now());
+        idempotencyService.deleteExpiredKeys();
+        assertAll(
+                () -> assertThat(idempotencyKeyRepo.find("expired")).isEmpty(),
+                () -> assertThat(idempotencyKeyRepo.find("fresh")).isPresent()
+        );
+    }
+
+    @Test
+    void takeOver_onlyStaleClaimsWithoutResponse() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusSeconds(30);
+        idempotencyKeyRepo.claim("stale", FINGERPRINT, "first", now.minusMinutes(5));
+        idempotencyKeyRepo.claim("fresh", FINGERPRINT, "first", now);
+        idempotencyKeyRepo.claim("completed", FINGERPRINT, "first", now.minusMinutes(5));
+        idempotencyKeyRepo.complete("completed", "first", "{}");
+
+        assertAll(
+                () -> assertThat(idempotencyKeyRepo.takeOver("fresh", "retry", now, staleBefore)).isFalse(),
+                () -> assertThat(idempotencyKeyRepo.takeOver("completed", "retry", now, staleBefore)).isFalse(),
+                () -> assertThat(idempotencyKeyRepo.takeOver("stale", "retry", now, staleBefore)).isTrue()
+        );
+        assertAll(
+                () -> assertThat(idempotencyKeyRepo.complete("stale", "first", "{}")).isFalse(),
+                () -> assertThat(idempotencyKeyRepo.complete("stale", "retry", "{}")).isTrue()
+        );
+    }
+
+    private AccountIdNameBalanceDto withdraw(String key, WithdrawRequest withdrawRequest) {
+        return idempotencyService.execute(key, "withdraw", withdrawRequest, AccountIdNameBalanceDto.class,
+                () -> accountService.withdraw(withdrawRequest));
+    }
+
+}
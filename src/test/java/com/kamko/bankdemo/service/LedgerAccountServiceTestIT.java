@@ -0,0 +1,197 @@
+package com.kamko.bankdemo.service;
+
+import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
+import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferItem;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferMode;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferRequest;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferResponse;
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.account_operation.TransferRequest;
+import com.kamko.bankdemo.dto.account_operation.WithdrawRequest;
+import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.kamko.bankdemo.exception.IdMatchingException;
+import com.kamko.bankdemo.exception.NotEnoughFundsException;
+import com.kamko.bankdemo.exception.WrongPinException;
+import com.kamko.bankdemo.ledger.Ledger;
+import com.kamko.bankdemo.ledger.LedgerAccount;
+import com.kamko.bankdemo.ledger.LedgerCommand;
+import com.kamko.bankdemo.ledger.LedgerJournal;
+import com.kamko.bankdemo.repo.AccountRepo;
+import com.kamko.bankdemo.service.impl.LedgerAccountServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledger",
+        "app.account.engine=ledger",
+        "app.account.ledger.shards=2"
+})
+class LedgerAccountServiceTestIT {
+
+    private static final String PIN = "1111";
+    private static final int SHARDS = 2;
+
+    @TempDir
+    private static Path ledgerDir;
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private Ledger ledger;
+    @Autowired
+    private AccountRepo accountRepo;
+
+    private Long first;
+    private Long second;
+
+    @DynamicPropertySource
+    static void ledger(DynamicPropertyRegistry registry) {
+        registry.add("app.account.ledger.directory", ledgerDir::toString);
+    }
+
+    @BeforeEach
+    void setUp() {
+        first = accountService.create(new NewAccountDto("first", PIN)).id();
+        second = accountService.create(new NewAccountDto("second", PIN)).id();
+        accountService.deposit(new DepositRequest(first, BigDecimal.valueOf(1_000)));
+    }
+
+    @Test
+    void ledgerEngine_isSelected() {
+        assertThat(accountService).isInstanceOf(LedgerAccountServiceImpl.class);
+    }
+
+    @Test
+    void create_successes() {
+        AccountIdNameBalanceDto actual = accountService.create(new NewAccountDto("name", "1234"));
+        assertAll(
+                () -> assertThat(actual.name()).isEqualTo("name"),
+                () -> assertThat(actual.balance()).isEqualByComparingTo(BigDecimal.ZERO),
+                () -> assertThat(ledger.find(actual.id())).isPresent()
+        );
+    }
+
+    @Test
+    void deposit_withdraw_successes() {
+        AccountIdNameBalanceDto deposited = accountService.deposit(new DepositRequest(first, BigDecimal.valueOf(100)));
+        AccountIdNameBalanceDto withdrawn = accountService.withdraw(new WithdrawRequest(first, BigDecimal.valueOf(50), PIN));
+        assertAll(
+                () -> assertThat(deposited).isEqualTo(new AccountIdNameBalanceDto(first, "first", new BigDecimal("1100.00"))),
+                () -> assertThat(withdrawn).isEqualTo(new AccountIdNameBalanceDto(first, "first", new BigDecimal("1050.00")))
+        );
+    }
+
+    @Test
+    void transfer_successes() {
+        accountService.transfer(new TransferRequest(first, second, BigDecimal.valueOf(100), PIN));
+        assertAll(
+                () -> assertThat(balance(first)).isEqualTo(new BigDecimal("900.00")),
+                () -> assertThat(balance(second)).isEqualTo(new BigDecimal("100.00"))
+        );
+    }
+
+    @Test
+    void transferBatch_bestEffort() {
+        BatchTransferResponse actual = accountService.transferBatch(new BatchTransferRequest(first, PIN,
+                BatchTransferMode.BEST_EFFORT, List.of(
+                new BatchTransferItem(second, BigDecimal.valueOf(600)),
+                new BatchTransferItem(404_404L, BigDecimal.ONE),
+                new BatchTransferItem(second, BigDecimal.valueOf(600)),
+                new BatchTransferItem(second, BigDecimal.valueOf(400))
+        )));
+        assertAll(
+                () -> assertThat(actual.balance()).isEqualTo(new BigDecimal("0.00")),
+                () -> assertThat(actual.results()).extracting(BatchTransferResponse.ItemResult::status).containsExactly(
+                        BatchTransferResponse.Status.COMPLETED, BatchTransferResponse.Status.FAILED,
+                        BatchTransferResponse.Status.FAILED, BatchTransferResponse.Status.COMPLETED),
+                () -> assertThat(balance(second)).isEqualTo(new BigDecimal("1000.00"))
+        );
+    }
+
+    @Test
+    void rejectedOperations() {
+        long wrongId = 404_404L;
+        assertAll(
+                () -> assertThatExceptionOfType(AccountNotFoundException.class)
+                        .isThrownBy(() -> accountService.deposit(new DepositRequest(wrongId, BigDecimal.TEN))),
+                () -> assertThatExceptionOfType(AccountNotFoundException.class)
+                        .isThrownBy(() -> accountService.transfer(new TransferRequest(first, wrongId, BigDecimal.TEN, PIN))),
+                () -> assertThatExceptionOfType(IdMatchingException.class)
+                        .isThrownBy(() -> accountService.transfer(new TransferRequest(first, first, BigDecimal.TEN, PIN))),
+                () -> assertThatExceptionOfType(NotEnoughFundsException.class)
+                        .isThrownBy(() -> accountService.withdraw(new WithdrawRequest(first, BigDecimal.valueOf(10_000), PIN))),
+                () -> assertThatExceptionOfType(NotEnoughFundsException.class)
+                        .isThrownBy(() -> accountService.transfer(new TransferRequest(first, second, BigDecimal.valueOf(10_000), PIN))),
+                () -> assertThatExceptionOfType(WrongPinException.class)
+                        .isThrownBy(() -> accountService.withdraw(new WithdrawRequest(first, BigDecimal.TEN, "1112"))),
+                () -> assertThat(balance(first)).isEqualTo(new BigDecimal("1000.00"))
+        );
+    }
+
+    @Test
+    void create_failsWhenLedgerAlreadyHoldsId() {
+        assertAll(
+                () -> assertThatExceptionOfType(IllegalStateException.class)
+                        .isThrownBy(() -> ledger.create(first, "recycled", BigDecimal.ZERO)),
+                () -> assertThat(balance(first)).isEqualTo(new BigDecimal("1000.00"))
+        );
+    }
+
+    @Test
+    void restart_restoresBalancesAndCopiesThemToTable() {
+        accountService.transfer(new TransferRequest(first, second, BigDecimal.valueOf(100), PIN));
+        ledger.stop();
+        ledger.start();
+        assertAll(
+                () -> assertThat(balance(first)).isEqualTo(new BigDecimal("900.00")),
+                () -> assertThat(balance(second)).isEqualTo(new BigDecimal("100.00")),
+                () -> assertThat(accountRepo.findBalanceById(second)).hasValue(new BigDecimal("100.00"))
+        );
+    }
+
+    @Test
+    void start_replaysJournalAndFinishesInterruptedTransfer() throws Exception {
+        ledger.stop();
+        // the payout made it to the journal, the crash came before the recipient was credited
+        try (LedgerJournal journal = new LedgerJournal(ledgerDir.resolve("shard-" + first % SHARDS + ".journal"))) {
+            journal.append(List.of(
+                    new LedgerCommand.Withdraw(first, new BigDecimal("100.00")),
+                    new LedgerCommand.Payout("interrupted", first, true,
+                            List.of(new LedgerCommand.Transfer(second, new BigDecimal("200.00"))))
+            ));
+        }
+        ledger.start();
+
+        assertAll(
+                () -> assertThat(balance(first)).isEqualTo(new BigDecimal("700.00")),
+                () -> assertThat(awaitBalance(second, new BigDecimal("200.00"))).isEqualTo(new BigDecimal("200.00"))
+        );
+    }
+
+    private BigDecimal balance(Long accountId) {
+        return ledger.find(accountId).map(LedgerAccount::balance).orElseThrow();
+    }
+
+    private BigDecimal awaitBalance(Long accountId, BigDecimal expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!balance(accountId).equals(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        return balance(accountId);
+    }
+
+}
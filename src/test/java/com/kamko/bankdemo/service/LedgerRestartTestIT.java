@@ -0,0 +1,61 @@
+package com.kamko.bankdemo.service;
+
+import com.kamko.bankdemo.BankDemoApplication;
+import com.kamko.bankdemo.dto.account.AccountIdNameBalanceDto;
+import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.ledger.Ledger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+/**
+ * The ledger directory outlives the in-memory database, so a restart hands out account ids the ledger has
+ * already seen.
+ */
+class LedgerRestartTestIT {
+
+    @TempDir
+    private Path ledgerDir;
+
+    @Test
+    void restartOnFreshDatabase_dropsAccountsTheTableDoesNotHave() {
+        AccountIdNameBalanceDto before;
+        try (ConfigurableApplicationContext context = start("ledger-before-restart")) {
+            AccountService accountService = context.getBean(AccountService.class);
+            before = accountService.create(new NewAccountDto("before", "1111"));
+            accountService.deposit(new DepositRequest(before.id(), BigDecimal.valueOf(500)));
+        }
+
+        try (ConfigurableApplicationContext context = start("ledger-after-restart")) {
+            assertThat(context.getBean(Ledger.class).find(before.id())).isEmpty();
+            AccountService accountService = context.getBean(AccountService.class);
+            AccountIdNameBalanceDto after = accountService.create(new NewAccountDto("after", "2222"));
+            assertAll(
+                    () -> assertThat(after.id()).isEqualTo(before.id()),
+                    () -> assertThat(after.name()).isEqualTo("after"),
+                    () -> assertThat(after.balance()).isEqualByComparingTo(BigDecimal.ZERO),
+                    () -> assertThat(accountService.findById(after.id()).balance())
+                            .isEqualByComparingTo(BigDecimal.ZERO)
+            );
+        }
+    }
+
+    private ConfigurableApplicationContext start(String database) {
+        // arguments rather than default properties, which application.yml would override
+        return new SpringApplicationBuilder(BankDemoApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:" + database,
+                "--server.port=0",
+                "--app.account.engine=ledger",
+                "--app.account.ledger.shards=2",
+                "--app.account.ledger.directory=" + ledgerDir);
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.kamko.bankdemo.service;
+
+import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
+import com.kamko.bankdemo.entity.Account;
+import com.kamko.bankdemo.repo.AccountRepo;
+import com.kamko.bankdemo.repo.TransactionLogRepo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:second-level-cache")
+class SecondLevelCacheTestIT {
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private TransactionLogService transactionLogService;
+    @Autowired
+    private AccountRepo accountRepo;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long accountId;
+
+    @BeforeEach
+    void setUp() {
+        accountId = accountService.create(new NewAccountDto("cached", "1111")).id();
+        accountService.deposit(new DepositRequest(accountId, BigDecimal.TEN));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAccountTransactions_repeatedPageIsServedFromCache() {
+        transactionLogService.findAccountTransactions(accountId, 0, 10);
+        Page<TransactionLogDto> repeated = transactionLogService.findAccountTransactions(accountId, 0, 10);
+        assertAll(
+                () -> assertThat(repeated.getContent()).hasSize(1),
+                () -> assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1),
+                () -> assertThat(statistics.getPrepareStatementCount()).isEqualTo(1),
+                () -> assertThat(statistics.getCacheRegionStatistics(TransactionLogRepo.HISTORY_CACHE_REGION)
+                        .getHitCount()).isEqualTo(1)
+        );
+    }
+
+    @Test
+    void findAccountTransactions_emptyHistoryChecksAccountInEntityCache() {
+        Long emptyAccountId = accountService.create(new NewAccountDto("empty", "1111")).id();
+        transactionLogService.findAccountTransactions(emptyAccountId, 0, 10);
+        transactionLogService.findAccountTransactions(emptyAccountId, 0, 10);
+        assertAll(
+                () -> assertThat(statistics.getDomainDataRegionStatistics("account").getHitCount()).isEqualTo(2),
+                () -> assertThat(statistics.getDomainDataRegionStatistics("account").getMissCount()).isZero()
+        );
+    }
+
+    @Test
+    void findAccountTransactions_newTransactionInvalidatesPage() {
+        transactionLogService.findAccountTransactions(accountId, 0, 10);
+        accountService.deposit(new DepositRequest(accountId, BigDecimal.ONE));
+        Page<TransactionLogDto> actual = transactionLogService.findAccountTransactions(accountId, 0, 10);
+        assertAll(
+                () -> assertThat(actual.getContent()).hasSize(2),
+                () -> assertThat(actual.getTotalElements()).isEqualTo(2)
+        );
+    }
+
+    @Test
+    void jdbcBalanceUpdate_evictsCachedAccount() {
+        accountRepo.findById(accountId);
+        transactionTemplate.executeWithoutResult(status ->
+                accountRepo.increaseBalances(new TreeMap<>(Map.of(accountId, BigDecimal.ONE))));
+        assertThat(accountRepo.findById(accountId)).get()
+                .extracting(Account::getBalance)
+                .isEqualTo(new BigDecimal("11.00"));
+    }
+
+}
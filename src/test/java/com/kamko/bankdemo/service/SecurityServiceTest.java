@@ -1,17 +1,23 @@
 package com.kamko.bankdemo.service;
 
+import com.kamko.bankdemo.config.PinSecurityProperties;
 import com.kamko.bankdemo.exception.WrongPinException;
+import com.kamko.bankdemo.security.PinHashingExecutor;
+import com.kamko.bankdemo.security.PinVerificationCache;
 import com.kamko.bankdemo.service.impl.SecurityServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -20,11 +26,17 @@ class SecurityServiceTest {
 
     @Mock
     private PasswordEncoder encoder;
+    @Mock
+    private PinVerificationCache pinCache;
+    @Spy
+    private PinHashingExecutor hashingExecutor = new PinHashingExecutor(
+            new PinSecurityProperties(null, null, new PinSecurityProperties.Hashing(1, 1)), new SimpleMeterRegistry());
     @InjectMocks
     private SecurityServiceImpl securityService;
 
     private static final String CORRECT_PIN = "1111";
     private static final String WRONG_PIN = "1112";
+    private static final String ENCODED_PIN = "encoded";
 
     @Test
     void verifyPin_wrongPinException() {
@@ -32,7 +44,40 @@ class SecurityServiceTest {
         assertAll(
                 () -> assertThatExceptionOfType(WrongPinException.class)
                         .isThrownBy(() -> securityService.verifyPin(WRONG_PIN, CORRECT_PIN, 1L)),
-                () -> verify(encoder, only()).matches(anyString(), anyString())
+                () -> verify(encoder, only()).matches(anyString(), anyString()),
+                () -> verify(pinCache, never()).markVerified(anyLong(), anyString(), anyString())
+        );
+    }
+
+    @Test
+    void verifyPin_successIsCached() {
+        doReturn(true).when(encoder).matches(anyString(), anyString());
+        assertAll(
+                () -> assertThat(securityService.verifyPin(CORRECT_PIN, ENCODED_PIN, 1L)).isEmpty(),
+                () -> verify(encoder, times(1)).matches(CORRECT_PIN, ENCODED_PIN),
+                () -> verify(encoder, never()).encode(anyString()),
+                () -> verify(pinCache, times(1)).markVerified(1L, CORRECT_PIN, ENCODED_PIN)
+        );
+    }
+
+    @Test
+    void verifyPin_outdatedHashIsUpgraded() {
+        String upgradedPin = "{bcrypt}upgraded";
+        doReturn(true).when(encoder).matches(anyString(), anyString());
+        doReturn(true).when(encoder).upgradeEncoding(ENCODED_PIN);
+        doReturn(upgradedPin).when(encoder).encode(CORRECT_PIN);
+        assertAll(
+                () -> assertThat(securityService.verifyPin(CORRECT_PIN, ENCODED_PIN, 1L)).contains(upgradedPin),
+                () -> verify(pinCache, times(1)).markVerified(1L, CORRECT_PIN, upgradedPin)
+        );
+    }
+
+    @Test
+    void verifyPin_cachedSkipsEncoder() {
+        doReturn(true).when(pinCache).isVerified(1L, CORRECT_PIN, ENCODED_PIN);
+        assertAll(
+                () -> assertThat(securityService.verifyPin(CORRECT_PIN, ENCODED_PIN, 1L)).isEmpty(),
+                () -> verifyNoInteractions(encoder)
         );
     }
 
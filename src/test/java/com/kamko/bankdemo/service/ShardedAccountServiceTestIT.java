@@ -0,0 +1,263 @@
+package com.kamko.bankdemo.service;
+
+import com.kamko.bankdemo.controller.TransactionLogController;
+import com.kamko.bankdemo.dto.account.AccountNameBalanceDto;
+import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferItem;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferMode;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferRequest;
+import com.kamko.bankdemo.dto.account_operation.BatchTransferResponse;
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.account_operation.TransferRequest;
+import com.kamko.bankdemo.dto.transaction.ExportFormat;
+import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.kamko.bankdemo.exception.NotEnoughFundsException;
+import com.kamko.bankdemo.exception.ShardedHistoryUnavailableException;
+import com.kamko.bankdemo.sharding.AccountShard;
+import com.kamko.bankdemo.sharding.AccountShards;
+import com.kamko.bankdemo.sharding.CrossShardTransferCoordinator;
+import com.kamko.bankdemo.sharding.TransferStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard-0",
+        "app.account.engine=sharded",
+        "app.account.sharding.range-size=1000",
+        "app.account.sharding.shards[0].url=jdbc:h2:mem:shard-1",
+        "app.account.sharding.shards[0].username=sa",
+        "app.account.sharding.shards[1].url=jdbc:h2:mem:shard-2",
+        "app.account.sharding.shards[1].username=sa"
+})
+class ShardedAccountServiceTestIT {
+
+    private static final String PIN = "1111";
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private SecurityService securityService;
+    @Autowired
+    private AccountShards shards;
+    @Autowired
+    private CrossShardTransferCoordinator coordinator;
+    @Autowired
+    private JdbcTemplate coordinatorJournal;
+    @Autowired
+    private TransactionLogController transactionLogController;
+    @Autowired
+    private TransactionLogService transactionLogService;
+
+    private long first;
+    private long second;
+    private long third;
+
+    @BeforeEach
+    void setUp() {
+        first = createAccount(1, BigDecimal.valueOf(1_000));
+        second = createAccount(1, BigDecimal.ZERO);
+        third = createAccount(2, BigDecimal.ZERO);
+    }
+
+    @Test
+    void create_spreadsAccountsOverShards() {
+        List<Long> ids = List.of(
+                accountService.create(new NewAccountDto("a", PIN)).id(),
+                accountService.create(new NewAccountDto("b", PIN)).id(),
+                accountService.create(new NewAccountDto("c", PIN)).id()
+        );
+        assertThat(ids).extracting(id -> shards.shardOf(id).index()).containsExactlyInAnyOrder(0, 1, 2);
+    }
+
+    @Test
+    void insert_usesEveryIdOfTheSequenceBlock() {
+        AccountShard shard = shards.get(1);
+        long id = shard.insert("a", PIN);
+        assertThat(shard.insert("b", PIN)).isEqualTo(id + 1);
+    }
+
+    @Test
+    void findAll_pagesAcrossShards() {
+        long total = shards.all().stream().mapToLong(AccountShard::count).sum();
+        List<AccountNameBalanceDto> all = accountService.findAll(0, (int) total).getContent();
+        List<AccountNameBalanceDto> lastTwo = accountService.findAll(((int) total - 2) / 2, 2).getContent();
+        assertAll(
+                () -> assertThat(all).hasSize((int) total),
+                () -> assertThat(accountService.findAll(0, 1).getTotalElements()).isEqualTo(total),
+                () -> assertThat(lastTwo).isEqualTo(all.subList((int) total - 2, (int) total))
+        );
+    }
+
+    @Test
+    void transfer_sameShard() {
+        accountService.transfer(new TransferRequest(first, second, BigDecimal.valueOf(100), PIN));
+        assertAll(
+                () -> assertThat(balance(first)).isEqualTo(new BigDecimal("900.00")),
+                () -> assertThat(balance(second)).isEqualTo(new BigDecimal("100.00")),
+                () -> assertThat(inDoubtTransfers()).isZero()
+        );
+    }
+
+    @Test
+    void transfer_crossShard() {
+        accountService.transfer(new TransferRequest(first, third, BigDecimal.valueOf(100), PIN));
+        assertAll(
+                () -> assertThat(balance(first)).isEqualTo(new BigDecimal("900.00")),
+                () -> assertThat(balance(third)).isEqualTo(new BigDecimal("100.00")),
+                () -> assertThat(inDoubtTransfers()).isZero()
+        );
+    }
+
+    @Test
+    void transfer_crossShard_rejected() {
+        long missing = 2_999L;
+        assertAll(
+                () -> assertThatExceptionOfType(NotEnoughFundsException.class).isThrownBy(() ->
+                        accountService.transfer(new TransferRequest(first, third, BigDecimal.valueOf(10_000), PIN))),
+                () -> assertThatExceptionOfType(AccountNotFoundException.class).isThrownBy(() ->
+                        accountService.transfer(new TransferRequest(first, missing, BigDecimal.TEN, PIN))),
+                () -> assertThat(balance(first)).isEqualTo(new BigDecimal("1000.00")),
+                () -> assertThat(balance(third)).isEqualTo(new BigDecimal("0.00")),
+                () -> assertThat(inDoubtTransfers()).isZero()
+        );
+    }
+
+    @Test
+    void transferBatch_acrossShards() {
+        BatchTransferResponse actual = accountService.transferBatch(new BatchTransferRequest(first, PIN,
+                BatchTransferMode.BEST_EFFORT, List.of(
+                new BatchTransferItem(second, BigDecimal.valueOf(300)),
+                new BatchTransferItem(third, BigDecimal.valueOf(900)),
+                new BatchTransferItem(third, BigDecimal.valueOf(700))
+        )));
+        assertAll(
+                () -> assertThat(actual.results()).extracting(BatchTransferResponse.ItemResult::status).containsExactly(
+                        BatchTransferResponse.Status.COMPLETED, BatchTransferResponse.Status.FAILED,
+                        BatchTransferResponse.Status.COMPLETED),
+                () -> assertThat(balance(first)).isEqualTo(new BigDecimal("0.00")),
+                () -> assertThat(balance(second)).isEqualTo(new BigDecimal("300.00")),
+                () -> assertThat(balance(third)).isEqualTo(new BigDecimal("700.00"))
+        );
+    }
+
+    @Test
+    void recover_completesCommittingTransfer() {
+        String transferId = prepareInterruptedTransfer(TransferStatus.COMMITTING);
+        coordinator.recover();
+        assertAll(
+                () -> assertThat(balance(first)).isEqualTo(new BigDecimal("900.00")),
+                () -> assertThat(balance(third)).isEqualTo(new BigDecimal("100.00")),
+                () -> assertThat(status(transferId)).isEqualTo(TransferStatus.DONE.name())
+        );
+    }
+
+    @Test
+    void recover_abortsPreparingTransfer() {
+        String transferId = prepareInterruptedTransfer(TransferStatus.PREPARING);
+        coordinator.recover();
+        assertAll(
+                () -> assertThat(balance(first)).isEqualTo(new BigDecimal("1000.00")),
+                () -> assertThat(balance(third)).isEqualTo(new BigDecimal("0.00")),
+                () -> assertThat(status(transferId)).isEqualTo(TransferStatus.DONE.name())
+        );
+    }
+
+    @Test
+    void finishDecided_completesCommittingTransfer() {
+        String transferId = prepareInterruptedTransfer(TransferStatus.COMMITTING);
+        coordinator.finishDecided();
+        assertAll(
+                () -> assertThat(balance(third)).isEqualTo(new BigDecimal("100.00")),
+                () -> assertThat(status(transferId)).isEqualTo(TransferStatus.DONE.name())
+        );
+    }
+
+    @Test
+    void finishDecided_leavesPreparingTransferInFlight() {
+        String transferId = prepareInterruptedTransfer(TransferStatus.PREPARING);
+        coordinator.finishDecided();
+        String status = status(transferId);
+        coordinator.recover();
+        assertAll(
+                () -> assertThat(status).isEqualTo(TransferStatus.PREPARING.name()),
+                () -> assertThat(balance(first)).isEqualTo(new BigDecimal("1000.00"))
+        );
+    }
+
+    @Test
+    void transactionHistory_rejectedForAccountsOutsideShardZero() {
+        long local = shards.get(0).insert("local", securityService.encode(PIN));
+        assertAll(
+                () -> assertThat(transactionLogController.scrollAccountTransactions(local, null, 5).content())
+                        .isEmpty(),
+                () -> assertThatExceptionOfType(ShardedHistoryUnavailableException.class)
+                        .isThrownBy(() -> transactionLogController.scrollAccountTransactions(third, null, 5)),
+                () -> assertThatExceptionOfType(ShardedHistoryUnavailableException.class)
+                        .isThrownBy(() -> transactionLogController.exportAccountTransactions(first,
+                                ExportFormat.NDJSON))
+        );
+    }
+
+    @Test
+    void deposit_onShardZeroInvalidatesCachedHistory() {
+        long local = createAccount(0, BigDecimal.TEN);
+        transactionLogService.findAccountTransactions(local, 0, 10);
+        accountService.deposit(new DepositRequest(local, BigDecimal.ONE));
+        assertThat(transactionLogService.findAccountTransactions(local, 0, 10).getContent()).hasSize(2);
+    }
+
+    /**
+     * Leaves a transfer of 100 from {@code first} to {@code third} as a crash would: both shards prepared and
+     * the coordinator journal at {@code status}.
+     */
+    private String prepareInterruptedTransfer(TransferStatus status) {
+        String transferId = UUID.randomUUID().toString();
+        BigDecimal amount = new BigDecimal("100.00");
+        coordinatorJournal.update("INSERT INTO cross_shard_transfer (id, status, shards, created_at) VALUES (?, ?, ?, ?)",
+                transferId, status.name(), "1,2", Timestamp.valueOf(LocalDateTime.now()));
+        AccountShard source = shards.shardOf(first);
+        source.inTransaction(() -> {
+            source.reduceBalance(first, amount);
+            source.reserve(transferId, first, amount.negate());
+            return null;
+        });
+        shards.shardOf(third).reserve(transferId, third, amount);
+        return transferId;
+    }
+
+    private long createAccount(int shardIndex, BigDecimal balance) {
+        long accountId = shards.get(shardIndex).insert("account", securityService.encode(PIN));
+        if (balance.signum() > 0) {
+            accountService.deposit(new DepositRequest(accountId, balance));
+        }
+        return accountId;
+    }
+
+    private BigDecimal balance(long accountId) {
+        return shards.shardOf(accountId).findIdNameBalance(accountId).orElseThrow().balance();
+    }
+
+    private String status(String transferId) {
+        return coordinatorJournal.queryForObject("SELECT status FROM cross_shard_transfer WHERE id = ?", String.class,
+                transferId);
+    }
+
+    private long inDoubtTransfers() {
+        return coordinatorJournal.queryForObject("SELECT COUNT(*) FROM cross_shard_transfer WHERE status <> 'DONE'",
+                Long.class);
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.kamko.bankdemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kamko.bankdemo.dto.transaction.ExportFormat;
+import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
+import com.kamko.bankdemo.entity.Account;
+import com.kamko.bankdemo.entity.Operation;
+import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.kamko.bankdemo.repo.AccountRepo;
+import com.kamko.bankdemo.repo.TransactionLogRepo;
+import com.kamko.bankdemo.service.impl.TransactionLogServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:export",
+        "app.transaction-log.export.fetch-size=2"
+})
+class TransactionLogExportTestIT {
+
+    @Autowired
+    private TransactionLogExportService exportService;
+    @Autowired
+    private TransactionLogServiceImpl transactionLogService;
+    @Autowired
+    private AccountRepo accountRepo;
+    @Autowired
+    private TransactionLogRepo transactionRepo;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        account = new Account();
+        account.setName("export");
+        account.setPin("1111");
+        account.setBalance(BigDecimal.ZERO);
+        account = accountRepo.save(account);
+        transactionLogService.logDeposit(account, BigDecimal.valueOf(100));
+        transactionLogService.logWithdraw(account, BigDecimal.valueOf(30));
+        transactionLogService.logDeposit(account, new BigDecimal("5.50"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepo.deleteAll();
+        accountRepo.deleteAll();
+    }
+
+    @Test
+    void exportAccountTransactions_csv() throws IOException {
+        List<String> lines = export(ExportFormat.CSV);
+
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).isEqualTo("operation,amount,dateTime");
+        assertThat(lines.subList(1, 4)).extracting(line -> line.substring(0, line.lastIndexOf(',')))
+                .containsExactly("DEPOSIT,5.50", "WITHDRAW,30.00", "DEPOSIT,100.00");
+    }
+
+    @Test
+    void exportAccountTransactions_ndjson() throws IOException {
+        List<TransactionLogDto> transactions = export(ExportFormat.NDJSON).stream()
+                .map(this::readJson)
+                .toList();
+
+        assertThat(transactions).extracting(TransactionLogDto::operation)
+                .containsExactly(Operation.DEPOSIT, Operation.WITHDRAW, Operation.DEPOSIT);
+        assertThat(transactions).extracting(TransactionLogDto::amount)
+                .containsExactly(new BigDecimal("5.50"), new BigDecimal("30.00"), new BigDecimal("100.00"));
+    }
+
+    @Test
+    void exportAccountTransactions_accountNotFound() {
+        assertThatThrownBy(() -> exportService.exportAccountTransactions(Long.MAX_VALUE, ExportFormat.CSV))
+                .isInstanceOf(AccountNotFoundException.class);
+    }
+
+    private List<String> export(ExportFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportAccountTransactions(account.getId(), format).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private TransactionLogDto readJson(String line) {
+        try {
+            return objectMapper.readValue(line, TransactionLogDto.class);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -1,17 +1,22 @@
 package com.kamko.bankdemo.service;
 
+import com.kamko.bankdemo.dto.CursorPageResponse;
+import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
 import com.kamko.bankdemo.entity.Account;
 import com.kamko.bankdemo.entity.Operation;
 import com.kamko.bankdemo.entity.TransactionLog;
 import com.kamko.bankdemo.repo.AccountRepo;
 import com.kamko.bankdemo.repo.TransactionLogRepo;
 import com.kamko.bankdemo.service.impl.TransactionLogServiceImpl;
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -79,6 +84,64 @@ class TransactionLogServiceTestIT {
         );
     }
 
+    @Test
+    public void findAccountTransactionSlice_success() {
+        Account account = createTestAccount();
+        accountRepo.saveAndFlush(account);
+        transactionLogService.logDeposit(account, BigDecimal.valueOf(100));
+        transactionLogService.logWithdraw(account, BigDecimal.valueOf(50));
+
+        var first = transactionLogService.findAccountTransactionSlice(account.getId(), 0, 1);
+        var last = transactionLogService.findAccountTransactionSlice(account.getId(), 1, 1);
+        assertAll(
+                () -> assertThat(first).hasSize(1),
+                () -> assertThat(first.hasNext()).isTrue(),
+                () -> assertThat(last).hasSize(1),
+                () -> assertThat(last.hasNext()).isFalse()
+        );
+    }
+
+    @Test
+    public void findAccountTransactions_pastLastPageOfExistingAccount() {
+        Account account = createTestAccount();
+        accountRepo.saveAndFlush(account);
+        transactionLogService.logDeposit(account, BigDecimal.TEN);
+
+        assertThat(transactionLogService.findAccountTransactions(account.getId(), 5, 10)).isEmpty();
+    }
+
+    @Test
+    public void scrollAccountTransactions_walksAllPagesNewestFirst() {
+        Account account = createTestAccount();
+        accountRepo.saveAndFlush(account);
+        for (int i = 1; i <= 5; i++) {
+            transactionLogService.logDeposit(account, BigDecimal.valueOf(i));
+        }
+        transactionRepo.flush();
+
+        List<TransactionLogDto> scrolled = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageResponse<TransactionLogDto> page =
+                    transactionLogService.scrollAccountTransactions(account.getId(), cursor, 2);
+            scrolled.addAll(page.content());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<TransactionLogDto> expected = transactionLogService.findAccountTransactions(account.getId(), 0, 10)
+                .getContent();
+        assertThat(pages).isEqualTo(3);
+        // the history pages are projected from the stored rows, the scroll maps entities still holding the
+        // unscaled amounts they were logged with
+        assertThat(scrolled).hasSize(5)
+                .usingRecursiveFieldByFieldElementComparator(RecursiveComparisonConfiguration.builder()
+                        .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                        .build())
+                .isEqualTo(expected);
+    }
+
     private Account createTestAccount() {
         Account account = new Account();
         account.setName("first");
@@ -1,8 +1,13 @@
 package com.kamko.bankdemo.service;
 
+import com.kamko.bankdemo.dto.CursorPageResponse;
+import com.kamko.bankdemo.dto.transaction.TransactionLogCursor;
 import com.kamko.bankdemo.dto.transaction.TransactionLogDto;
+import com.kamko.bankdemo.entity.Account;
+import com.kamko.bankdemo.entity.Operation;
 import com.kamko.bankdemo.entity.TransactionLog;
 import com.kamko.bankdemo.exception.AccountNotFoundException;
+import com.kamko.bankdemo.exception.InvalidCursorException;
 import com.kamko.bankdemo.mapper.TransactionLogMapper;
 import com.kamko.bankdemo.repo.AccountRepo;
 import com.kamko.bankdemo.repo.TransactionLogRepo;
@@ -16,9 +21,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 
 import static com.kamko.bankdemo.data.PreparedData.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -53,6 +62,17 @@ class TransactionServiceTest {
         verify(transactionRepo, only()).save(WITHDRAW_TRANSACTION_LOG);
     }
 
+    @Test
+    void logTransfer_success() {
+        Account to = new Account();
+        to.setId(2L);
+        transactionService.logTransfer(ACCOUNT, to, BigDecimal.TEN);
+        verify(transactionRepo, only()).saveAll(List.of(
+                new TransactionLog(Operation.WITHDRAW, BigDecimal.TEN, ACCOUNT),
+                new TransactionLog(Operation.DEPOSIT, BigDecimal.TEN, to)
+        ));
+    }
+
     @Test
     void findAccountTransactions_success() {
         doReturn(true).when(accountRepo).existsById(anyLong());
@@ -65,14 +85,101 @@ class TransactionServiceTest {
         );
     }
 
+    @Test
+    void findAccountTransactions_nonEmptyPageSkipsAccountLookup() {
+        TransactionLogDto dto = new TransactionLogDto(Operation.DEPOSIT, BigDecimal.TEN, null);
+        doReturn(new PageImpl<>(List.of(dto), PageRequest.of(0, 2), 1))
+                .when(transactionRepo).findPageOfTransaction(any(Pageable.class), anyLong());
+        Page<TransactionLogDto> actual = transactionService.findAccountTransactions(1L, 0, 2);
+        assertAll(
+                () -> assertThat(actual.getContent()).containsExactly(dto),
+                () -> verifyNoInteractions(accountRepo, transactionMapper)
+        );
+    }
+
     @Test
     void findAccountTransactions_accountNotFoundException() {
+        doReturn(Page.empty()).when(transactionRepo).findPageOfTransaction(any(Pageable.class), anyLong());
         doReturn(false).when(accountRepo).existsById(anyLong());
+        assertThatExceptionOfType(AccountNotFoundException.class)
+                .isThrownBy(() -> transactionService.findAccountTransactions(1L, 0, 2));
+    }
+
+    @Test
+    void findAccountTransactionSlice_success() {
+        TransactionLogDto dto = new TransactionLogDto(Operation.DEPOSIT, BigDecimal.TEN, null);
+        doReturn(new SliceImpl<>(List.of(dto), PageRequest.of(0, 1), true))
+                .when(transactionRepo).findSliceOfTransaction(any(Pageable.class), anyLong());
+        Slice<TransactionLogDto> actual = transactionService.findAccountTransactionSlice(1L, 0, 1);
         assertAll(
-                () -> assertThatExceptionOfType(AccountNotFoundException.class)
-                        .isThrownBy(() -> transactionService.findAccountTransactions(1L, 0, 2)),
-                () -> verify(transactionRepo, never()).findPageOfTransaction(any(Pageable.class), anyLong())
+                () -> assertThat(actual.getContent()).containsExactly(dto),
+                () -> assertThat(actual.hasNext()).isTrue(),
+                () -> verify(transactionRepo, only()).findSliceOfTransaction(PageRequest.of(0, 1), 1L),
+                () -> verifyNoInteractions(accountRepo)
         );
     }
 
-}
\ No newline at end of file
+    @Test
+    void findAccountTransactionSlice_accountNotFoundException() {
+        doReturn(new SliceImpl<>(List.of())).when(transactionRepo).findSliceOfTransaction(any(Pageable.class), anyLong());
+        doReturn(false).when(accountRepo).existsById(anyLong());
+        assertThatExceptionOfType(AccountNotFoundException.class)
+                .isThrownBy(() -> transactionService.findAccountTransactionSlice(1L, 0, 2));
+    }
+
+    @Test
+    void scrollAccountTransactions_lastPage() {
+        TransactionLog transaction = new TransactionLog(Operation.DEPOSIT, BigDecimal.TEN, new Account());
+        TransactionLogDto dto = new TransactionLogDto(Operation.DEPOSIT, BigDecimal.TEN, null);
+        doReturn(List.of(transaction)).when(transactionRepo).findFirstTransactions(anyLong(), any(Pageable.class));
+        doReturn(dto).when(transactionMapper).toDto(transaction);
+        CursorPageResponse<TransactionLogDto> actual = transactionService.scrollAccountTransactions(1L, null, 2);
+        assertAll(
+                () -> assertThat(actual.content()).containsExactly(dto),
+                () -> assertThat(actual.nextCursor()).isNull(),
+                () -> verify(transactionRepo).findFirstTransactions(1L, PageRequest.ofSize(3)),
+                () -> verify(accountRepo, never()).existsById(anyLong())
+        );
+    }
+
+    @Test
+    void scrollAccountTransactions_cursorPointsAfterLastRow() {
+        LocalDateTime dateTime = LocalDateTime.of(2023, 1, 1, 10, 0);
+        TransactionLogCursor cursor = new TransactionLogCursor(dateTime, 7L);
+        List<TransactionLog> transactions = List.of(transaction(6L, dateTime), transaction(5L, dateTime),
+                transaction(4L, dateTime));
+        doReturn(transactions).when(transactionRepo)
+                .findTransactionsAfter(1L, dateTime, 7L, PageRequest.ofSize(3));
+        CursorPageResponse<TransactionLogDto> actual = transactionService.scrollAccountTransactions(1L, cursor.encode(), 2);
+        assertAll(
+                () -> assertThat(actual.content()).hasSize(2),
+                () -> assertThat(TransactionLogCursor.decode(actual.nextCursor()))
+                        .isEqualTo(new TransactionLogCursor(dateTime, 5L))
+        );
+    }
+
+    @Test
+    void scrollAccountTransactions_invalidCursor() {
+        assertAll(
+                () -> assertThatExceptionOfType(InvalidCursorException.class)
+                        .isThrownBy(() -> transactionService.scrollAccountTransactions(1L, "not a cursor", 2)),
+                () -> verifyNoInteractions(transactionRepo)
+        );
+    }
+
+    @Test
+    void scrollAccountTransactions_accountNotFoundException() {
+        doReturn(Collections.emptyList()).when(transactionRepo).findFirstTransactions(anyLong(), any(Pageable.class));
+        doReturn(false).when(accountRepo).existsById(anyLong());
+        assertThatExceptionOfType(AccountNotFoundException.class)
+                .isThrownBy(() -> transactionService.scrollAccountTransactions(1L, null, 2));
+    }
+
+    private static TransactionLog transaction(Long id, LocalDateTime dateTime) {
+        TransactionLog transaction = new TransactionLog(Operation.DEPOSIT, BigDecimal.TEN, new Account());
+        transaction.setId(id);
+        transaction.setDateTime(dateTime);
+        return transaction;
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.kamko.bankdemo.service;
+
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.dto.account_operation.TransferRequest;
+import com.kamko.bankdemo.entity.Account;
+import com.kamko.bankdemo.entity.Operation;
+import com.kamko.bankdemo.entity.TransactionLog;
+import com.kamko.bankdemo.journal.TransactionLogEvent;
+import com.kamko.bankdemo.journal.TransactionLogJournal;
+import com.kamko.bankdemo.journal.TransactionLogWriter;
+import com.kamko.bankdemo.repo.AccountRepo;
+import com.kamko.bankdemo.repo.TransactionLogRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:write-behind",
+        "app.transaction-log.write-behind.enabled=true",
+        "app.transaction-log.write-behind.flush-interval=20ms"
+})
+class WriteBehindTransactionLogTestIT {
+
+    private static final String PIN = "1111";
+
+    @TempDir
+    private static Path journalDir;
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private TransactionLogService transactionLogService;
+    @Autowired
+    private SecurityService securityService;
+    @Autowired
+    private TransactionLogWriter writer;
+    @Autowired
+    private AccountRepo accountRepo;
+    @Autowired
+    private TransactionLogRepo transactionRepo;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Account first;
+    private Account second;
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) {
+        registry.add("app.transaction-log.write-behind.journal", () -> journalDir.resolve("journal").toString());
+    }
+
+    @BeforeEach
+    void setUp() {
+        first = saveAccount("first", BigDecimal.valueOf(1_000));
+        second = saveAccount("second", BigDecimal.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepo.deleteAll(accountTransactions());
+        accountRepo.deleteAllById(List.of(first.getId(), second.getId()));
+    }
+
+    @Test
+    void operations_areFlushedAfterCommit() throws InterruptedException {
+        accountService.deposit(new DepositRequest(first.getId(), BigDecimal.TEN));
+        accountService.transfer(new TransferRequest(first.getId(), second.getId(), BigDecimal.ONE, PIN));
+
+        assertThat(awaitTransactions(3)).extracting(TransactionLog::getOperation)
+                .containsExactlyInAnyOrder(Operation.DEPOSIT, Operation.WITHDRAW, Operation.DEPOSIT);
+    }
+
+    @Test
+    void rolledBackOperation_isNotLogged() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionLogService.logDeposit(first, BigDecimal.TEN);
+            status.setRollbackOnly();
+        });
+        accountService.deposit(new DepositRequest(second.getId(), BigDecimal.ONE));
+
+        assertThat(awaitTransactions(1)).extracting(log -> log.getAccount().getId())
+                .containsExactly(second.getId());
+    }
+
+    @Test
+    void interruptedCaller_writesRowsDirectly() {
+        Thread.currentThread().interrupt();
+        boolean interrupted;
+        try {
+            writer.submit(List.of(
+                    new TransactionLogEvent(0, first.getId(), Operation.DEPOSIT, BigDecimal.ONE, LocalDateTime.now())));
+        } finally {
+            interrupted = Thread.interrupted();
+        }
+
+        assertAll(
+                () -> assertThat(interrupted).isTrue(),
+                () -> assertThat(accountTransactions()).extracting(TransactionLog::getOperation)
+                        .containsExactly(Operation.DEPOSIT)
+        );
+    }
+
+    @Test
+    void start_replaysJournalAfterCheckpoint() throws Exception {
+        writer.stop();
+        long checkpoint = checkpoint();
+        LocalDateTime now = LocalDateTime.now();
+        try (TransactionLogJournal journal = new TransactionLogJournal(journalDir.resolve("journal"))) {
+            journal.append(List.of(
+                    new TransactionLogEvent(checkpoint, first.getId(), Operation.DEPOSIT, BigDecimal.ONE, now),
+                    new TransactionLogEvent(checkpoint + 1, first.getId(), Operation.WITHDRAW, BigDecimal.ONE, now),
+                    new TransactionLogEvent(checkpoint + 2, second.getId(), Operation.DEPOSIT, BigDecimal.ONE, now)
+            ));
+        }
+        writer.start();
+
+        assertAll(
+                () -> assertThat(accountTransactions()).extracting(TransactionLog::getOperation)
+                        .containsExactlyInAnyOrder(Operation.WITHDRAW, Operation.DEPOSIT),
+                () -> assertThat(checkpoint()).isEqualTo(checkpoint + 2),
+                () -> assertThat(Files.size(journalDir.resolve("journal"))).isZero()
+        );
+    }
+
+    private Account saveAccount(String name, BigDecimal balance) {
+        Account account = new Account();
+        account.setName(name);
+        account.setPin(securityService.encode(PIN));
+        account.setBalance(balance);
+        return accountRepo.save(account);
+    }
+
+    private List<TransactionLog> awaitTransactions(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        List<TransactionLog> transactions = accountTransactions();
+        while (transactions.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            transactions = accountTransactions();
+        }
+        return transactions;
+    }
+
+    private List<TransactionLog> accountTransactions() {
+        return transactionRepo.findAll().stream()
+                .filter(log -> List.of(first.getId(), second.getId()).contains(log.getAccount().getId()))
+                .toList();
+    }
+
+    private long checkpoint() {
+        return jdbcTemplate.queryForObject("SELECT last_sequence FROM transaction_log_checkpoint WHERE id = 1",
+                Long.class);
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.kamko.bankdemo.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class ServerTimingTest {
+
+    @AfterEach
+    void tearDown() {
+        ServerTiming.close();
+    }
+
+    @Test
+    void header_sumsCallsInRecordedOrder() {
+        ServerTiming timing = ServerTiming.open();
+        timing.add(ServerTiming.PIN, 2_500_000);
+        timing.add(ServerTiming.SQL, 1_000_000);
+        timing.add(ServerTiming.SQL, 250_000);
+        assertThat(timing.header()).isEqualTo("pin;dur=2.500, sql;dur=1.250;desc=\"2 calls\"");
+    }
+
+    @Test
+    void current_isBoundToOpenRequestOnly() {
+        ServerTiming timing = ServerTiming.open();
+        ServerTiming opened = ServerTiming.current();
+        ServerTiming.close();
+        assertAll(
+                () -> assertThat(opened).isSameAs(timing),
+                () -> assertThat(ServerTiming.current()).isNull()
+        );
+    }
+
+}
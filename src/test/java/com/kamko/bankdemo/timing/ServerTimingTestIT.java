@@ -0,0 +1,74 @@
+package com.kamko.bankdemo.timing;
+
+import com.kamko.bankdemo.dto.account.NewAccountDto;
+import com.kamko.bankdemo.dto.account_operation.DepositRequest;
+import com.kamko.bankdemo.service.AccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:server-timing")
+@AutoConfigureMockMvc
+class ServerTimingTestIT {
+
+    private static final String REQUEST_HEADER = "X-Server-Timing";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AccountService accountService;
+
+    private Long accountId;
+
+    @BeforeEach
+    void setUp() {
+        accountId = accountService.create(new NewAccountDto("timed", "1111")).id();
+        accountService.deposit(new DepositRequest(accountId, BigDecimal.valueOf(100)));
+    }
+
+    @Test
+    void withdraw_withDebugHeader_reportsEveryPart() throws Exception {
+        mockMvc.perform(withdraw().header(REQUEST_HEADER, "1"))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.balance").value(90),
+                        header().string(ServerTimingFilter.SERVER_TIMING, allOf(
+                                containsString("validation;dur="),
+                                containsString("pin;dur="),
+                                containsString("sql;dur="),
+                                containsString("serialization;dur="),
+                                containsString("total;dur=")))
+                );
+    }
+
+    @Test
+    void withdraw_withoutDebugHeader_hasNoServerTiming() throws Exception {
+        mockMvc.perform(withdraw())
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.balance").value(90),
+                        header().doesNotExist(ServerTimingFilter.SERVER_TIMING)
+                );
+    }
+
+    private MockHttpServletRequestBuilder withdraw() {
+        return put("/api/v1/accounts/withdraw")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"fromAccountId\": " + accountId + ", \"amount\": 10, \"pin\": \"1111\"}");
+    }
+
+}